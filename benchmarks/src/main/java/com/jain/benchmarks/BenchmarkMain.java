@@ -0,0 +1,27 @@
+package com.jain.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the JMH command line, but results
+ * are always written as JSON ({@code jmh-result.json} unless {@code -rff}
+ * says otherwise) so runs can be compared with {@link CompareResults}.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add(0, "-rf");
+            options.add(1, "json");
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,91 @@
+package com.jain.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. the last release against the
+ * current build:
+ * <pre>
+ * java -cp benchmarks.jar com.jain.benchmarks.CompareResults baseline.json jmh-result.json 10
+ * </pre>
+ * Benchmarks are matched by name and parameters. A change counts as a
+ * regression when the score moved in the bad direction (lower throughput,
+ * higher time per op) by more than the threshold percent (default 10) and
+ * by more than both runs' error margins combined. Exits with status 1 if
+ * any benchmark regressed.
+ */
+public final class CompareResults {
+
+    private record Result(String mode, double score, double error, String unit) {
+    }
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %-90s %12.3f %s%n", entry.getKey(), now.score(), now.unit());
+                continue;
+            }
+
+            double change = (now.score() - before.score()) / before.score() * 100.0;
+            // Positive means worse, whatever the mode
+            double worse = "thrpt".equals(now.mode()) ? -change : change;
+            boolean outsideNoise = Math.abs(now.score() - before.score()) > before.error() + now.error();
+            String verdict = worse > threshold && outsideNoise ? "REGRESSED"
+                    : worse < -threshold && outsideNoise ? "IMPROVED" : "ok";
+            if ("REGRESSED".equals(verdict)) {
+                regressions++;
+            }
+            System.out.printf("%-10s %-90s %12.3f -> %12.3f %s (%+.1f%%)%n",
+                    verdict, entry.getKey(), before.score(), now.score(), now.unit(), change);
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("MISSING    %s%n", key));
+
+        System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Map.Entry<String, JsonNode> param : params.properties()) {
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            JsonNode metric = run.get("primaryMetric");
+            double error = metric.get("scoreError").asDouble();
+            results.put(key.toString(), new Result(
+                    run.get("mode").asText(),
+                    metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    metric.get("scoreUnit").asText()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jain.benchmarks.grpc;
+
+import com.jain.grpc.GetOrderRequest;
+import com.jain.grpc.GetOrderResponse;
+import com.jain.grpc.GetPortfolioRequest;
+import com.jain.grpc.GetPortfolioResponse;
+import com.jain.grpc.Holding;
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderStatus;
+import com.jain.grpc.OrderType;
+import com.jain.grpc.PlaceOrderRequest;
+import com.jain.grpc.PlaceOrderResponse;
+import com.jain.grpc.PlaceOrdersRequest;
+import com.jain.grpc.PlaceOrdersResponse;
+import com.jain.grpc.StockPricesRequest;
+import com.jain.grpc.StockPricesResponse;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.stub.StreamObserver;
+
+import java.time.LocalDateTime;
+
+/**
+ * Answers every unary RPC immediately with a response of realistic shape,
+ * so a round trip measures transport, serialization and interceptors only.
+ */
+class CannedStockService extends StockTradingServiceGrpc.StockTradingServiceImplBase {
+
+    private final String now = LocalDateTime.now().toString();
+
+    @Override
+    public void getStockPrice(StockRequest request, StreamObserver<StockResponse> responseObserver) {
+        responseObserver.onNext(quote(request.getStockSymbol()));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getStockPrices(StockPricesRequest request, StreamObserver<StockPricesResponse> responseObserver) {
+        StockPricesResponse.Builder response = StockPricesResponse.newBuilder();
+        request.getStockSymbolsList().forEach(symbol -> response.addStocks(quote(symbol)));
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void placeOrder(PlaceOrderRequest request, StreamObserver<PlaceOrderResponse> responseObserver) {
+        responseObserver.onNext(accepted(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void placeOrders(PlaceOrdersRequest request, StreamObserver<PlaceOrdersResponse> responseObserver) {
+        PlaceOrdersResponse.Builder response = PlaceOrdersResponse.newBuilder();
+        request.getOrdersList().forEach(order -> response.addResults(accepted(order)));
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getOrder(GetOrderRequest request, StreamObserver<GetOrderResponse> responseObserver) {
+        responseObserver.onNext(
+                GetOrderResponse.newBuilder()
+                        .setOrderId(request.getOrderId())
+                        .setStockSymbol("AAPL")
+                        .setSide(OrderSide.BUY)
+                        .setQuantity(10)
+                        .setStatus(OrderStatus.EXECUTED)
+                        .setCreatedAt(now)
+                        .setOrderType(OrderType.LIMIT)
+                        .setLimitPrice(182.5)
+                        .setFilledQuantity(10)
+                        .setAverageFillPrice(182.36)
+                        .build()
+        );
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getPortfolio(GetPortfolioRequest request, StreamObserver<GetPortfolioResponse> responseObserver) {
+        GetPortfolioResponse.Builder response = GetPortfolioResponse.newBuilder().setLastUpdated(now);
+        for (int i = 0; i < 10; i++) {
+            response.addHoldings(Holding.newBuilder().setStockSymbol("SYM" + i).setQuantity(10 + i).build());
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    private StockResponse quote(String symbol) {
+        return StockResponse.newBuilder()
+                .setStockSymbol(symbol)
+                .setPrice(182.36)
+                .setTimestamp(now)
+                .build();
+    }
+
+    private static PlaceOrderResponse accepted(PlaceOrderRequest request) {
+        return PlaceOrderResponse.newBuilder()
+                .setOrderId(request.getOrderId())
+                .setStatus(OrderStatus.ACCEPTED)
+                .setMessage("Order accepted for processing")
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.jain.benchmarks.grpc;
+
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import com.jain.trading.client.channel.BalancingPolicy;
+import com.jain.trading.client.channel.PooledChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unary throughput through a {@link PooledChannel} over several in-process
+ * replicas, the first of which answers {@code slowMillis} instead of
+ * {@code fastMillis}.
+ * <p>
+ * {@code ROUND_ROBIN} sends every replica the same share, so callers keep
+ * waiting on the slow one; {@code LEAST_OUTSTANDING} sees calls pile up
+ * there and routes new ones to the fast replicas. Per-replica call counts
+ * and mean latency, read from the pool's own meters, are printed at the
+ * end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class ChannelPoolBenchmark {
+
+    @Param({"ROUND_ROBIN", "LEAST_OUTSTANDING"})
+    public BalancingPolicy policy;
+
+    @Param("3")
+    public int replicas;
+
+    @Param("2")
+    public int subChannels;
+
+    @Param("1")
+    public long fastMillis;
+
+    @Param("10")
+    public long slowMillis;
+
+    private final List<Server> servers = new ArrayList<>();
+    private ScheduledExecutorService responder;
+    private SimpleMeterRegistry meterRegistry;
+    private PooledChannel channel;
+    private StockTradingServiceGrpc.StockTradingServiceBlockingStub stub;
+    private StockRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        responder = Executors.newScheduledThreadPool(4);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < replicas; i++) {
+            String name = "replica-" + i;
+            servers.add(InProcessServerBuilder.forName(name)
+                    .directExecutor()
+                    .addService(new DelayedStockService(responder, i == 0 ? slowMillis : fastMillis))
+                    .build()
+                    .start());
+            names.add(name);
+        }
+
+        meterRegistry = new SimpleMeterRegistry();
+        channel = new PooledChannel("bench", policy, subChannels, Duration.ofSeconds(5),
+                name -> InProcessChannelBuilder.forName(name).directExecutor().build(), meterRegistry);
+        channel.setBackends(names);
+        stub = StockTradingServiceGrpc.newBlockingStub(channel);
+        request = StockRequest.newBuilder().setStockSymbol("AAPL").build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        for (Timer timer : meterRegistry.find("grpc_client_backend_latency").timers()) {
+            System.out.printf("%n%s %s: %d calls, mean %.2f ms", policy, timer.getId().getTag("backend"),
+                    timer.count(), timer.mean(TimeUnit.MILLISECONDS));
+        }
+        System.out.println();
+
+        channel.shutdown();
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        servers.clear();
+        responder.shutdownNow();
+    }
+
+    @Benchmark
+    public StockResponse getStockPrice() {
+        return stub.getStockPrice(request);
+    }
+
+    private static final class DelayedStockService extends StockTradingServiceGrpc.StockTradingServiceImplBase {
+
+        private final ScheduledExecutorService responder;
+        private final long delayMillis;
+
+        DelayedStockService(ScheduledExecutorService responder, long delayMillis) {
+            this.responder = responder;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void getStockPrice(StockRequest request, StreamObserver<StockResponse> responseObserver) {
+            responder.schedule(() -> {
+                responseObserver.onNext(
+                        StockResponse.newBuilder()
+                                .setStockSymbol(request.getStockSymbol())
+                                .setPrice(100.0)
+                                .build()
+                );
+                responseObserver.onCompleted();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
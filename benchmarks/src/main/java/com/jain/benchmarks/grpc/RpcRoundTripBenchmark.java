@@ -0,0 +1,141 @@
+package com.jain.benchmarks.grpc;
+
+import com.jain.grpc.GetOrderRequest;
+import com.jain.grpc.GetOrderResponse;
+import com.jain.grpc.GetPortfolioRequest;
+import com.jain.grpc.GetPortfolioResponse;
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderType;
+import com.jain.grpc.PlaceOrderRequest;
+import com.jain.grpc.PlaceOrderResponse;
+import com.jain.grpc.PlaceOrdersRequest;
+import com.jain.grpc.PlaceOrdersResponse;
+import com.jain.grpc.StockPricesRequest;
+import com.jain.grpc.StockPricesResponse;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import com.jain.grpc_stock_trading_server.config.GrpcMetricsInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process round trip for every unary RPC, through the production
+ * metrics interceptor, against {@link CannedStockService}. Mongo and Kafka
+ * are out of the picture, so a regression here is in gRPC, protobuf or
+ * the interceptors. Batch RPCs carry ten entries. Streaming RPCs are
+ * long-lived and not covered here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RpcRoundTripBenchmark {
+
+    private static final int BATCH = 10;
+
+    private Server server;
+    private ManagedChannel channel;
+    private StockTradingServiceGrpc.StockTradingServiceBlockingStub stub;
+
+    private StockRequest stockRequest;
+    private StockPricesRequest stockPricesRequest;
+    private PlaceOrderRequest placeOrderRequest;
+    private PlaceOrdersRequest placeOrdersRequest;
+    private GetOrderRequest getOrderRequest;
+    private GetPortfolioRequest getPortfolioRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new CannedStockService(),
+                        new GrpcMetricsInterceptor(meterRegistry)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = StockTradingServiceGrpc.newBlockingStub(channel);
+
+        stockRequest = StockRequest.newBuilder().setStockSymbol("AAPL").build();
+        StockPricesRequest.Builder prices = StockPricesRequest.newBuilder();
+        PlaceOrdersRequest.Builder basket = PlaceOrdersRequest.newBuilder();
+        for (int i = 0; i < BATCH; i++) {
+            prices.addStockSymbols("SYM" + i);
+            basket.addOrders(order("bench-" + i));
+        }
+        stockPricesRequest = prices.build();
+        placeOrdersRequest = basket.build();
+        placeOrderRequest = order("bench-single");
+        getOrderRequest = GetOrderRequest.newBuilder().setOrderId("bench-single").build();
+        getPortfolioRequest = GetPortfolioRequest.newBuilder().build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public StockResponse getStockPrice() {
+        return stub.getStockPrice(stockRequest);
+    }
+
+    @Benchmark
+    public StockPricesResponse getStockPrices() {
+        return stub.getStockPrices(stockPricesRequest);
+    }
+
+    @Benchmark
+    public PlaceOrderResponse placeOrder() {
+        return stub.placeOrder(placeOrderRequest);
+    }
+
+    @Benchmark
+    public PlaceOrdersResponse placeOrders() {
+        return stub.placeOrders(placeOrdersRequest);
+    }
+
+    @Benchmark
+    public GetOrderResponse getOrder() {
+        return stub.getOrder(getOrderRequest);
+    }
+
+    @Benchmark
+    public GetPortfolioResponse getPortfolio() {
+        return stub.getPortfolio(getPortfolioRequest);
+    }
+
+    private static PlaceOrderRequest order(String orderId) {
+        return PlaceOrderRequest.newBuilder()
+                .setOrderId(orderId)
+                .setStockSymbol("AAPL")
+                .setSide(OrderSide.BUY)
+                .setQuantity(10)
+                .setOrderType(OrderType.LIMIT)
+                .setLimitPrice(182.5)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.jain.benchmarks.grpc;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time for a wave of concurrent unary calls against an in-process
+ * gRPC server whose handler blocks like a Mongo round trip.
+ * <p>
+ * {@code platform} runs handlers on a fixed pool, the way a sized executor
+ * caps concurrency; {@code virtual} runs each call on its own virtual
+ * thread, as with {@code spring.threads.virtual.enabled=true}. Once
+ * {@code concurrency} exceeds the pool size the platform wave time grows
+ * in steps of {@code blockingMillis}, while the virtual one stays close to
+ * a single round trip. The {@code virtual} mode needs a Java 21 runtime
+ * (build with {@code -Pjava21}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerExecutorBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"200", "2000"})
+    public int concurrency;
+
+    @Param("200")
+    public int platformThreads;
+
+    @Param("5")
+    public long blockingMillis;
+
+    private ExecutorService platformPool;
+    private Server server;
+    private ManagedChannel channel;
+    private StockTradingServiceGrpc.StockTradingServiceFutureStub stub;
+    private StockRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        Executor executor;
+        if ("virtual".equals(mode)) {
+            executor = new VirtualThreadTaskExecutor("bench-vt-");
+        } else {
+            platformPool = Executors.newFixedThreadPool(platformThreads);
+            executor = platformPool;
+        }
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .executor(executor)
+                .addService(new BlockingStockService(blockingMillis))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = StockTradingServiceGrpc.newFutureStub(channel);
+        request = StockRequest.newBuilder().setStockSymbol("AAPL").build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public List<StockResponse> wave() throws Exception {
+        List<ListenableFuture<StockResponse>> calls = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            calls.add(stub.getStockPrice(request));
+        }
+        return Futures.allAsList(calls).get(1, TimeUnit.MINUTES);
+    }
+
+    private static final class BlockingStockService extends StockTradingServiceGrpc.StockTradingServiceImplBase {
+
+        private final long blockingMillis;
+
+        BlockingStockService(long blockingMillis) {
+            this.blockingMillis = blockingMillis;
+        }
+
+        @Override
+        public void getStockPrice(StockRequest request, StreamObserver<StockResponse> responseObserver) {
+            try {
+                Thread.sleep(blockingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responseObserver.onNext(
+                    StockResponse.newBuilder()
+                            .setStockSymbol(request.getStockSymbol())
+                            .setPrice(100.0)
+                            .build()
+            );
+            responseObserver.onCompleted();
+        }
+    }
+}
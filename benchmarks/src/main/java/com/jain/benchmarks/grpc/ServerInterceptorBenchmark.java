@@ -0,0 +1,91 @@
+package com.jain.benchmarks.grpc;
+
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import com.jain.grpc_stock_trading_server.config.GrpcMetricsInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the server's metrics interceptor, measured as an
+ * in-process {@code GetStockPrice} round trip.
+ * <p>
+ * {@code grpcMetrics} is production: {@link GrpcMetricsInterceptor} with
+ * latency histogram, status, sizes and in-flight gauge. Its difference to
+ * {@code none} is what the metrics cost per call. {@code micrometer} is
+ * Micrometer's stock {@link MetricCollectingServerInterceptor}, for
+ * comparison; the server used to run both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerInterceptorBenchmark {
+
+    @Param({"none", "grpcMetrics", "micrometer"})
+    public String interceptors;
+
+    private Server server;
+    private ManagedChannel channel;
+    private StockTradingServiceGrpc.StockTradingServiceBlockingStub stub;
+    private StockRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<ServerInterceptor> stack = new ArrayList<>();
+        if ("grpcMetrics".equals(interceptors)) {
+            stack.add(new GrpcMetricsInterceptor(meterRegistry));
+        }
+        if ("micrometer".equals(interceptors)) {
+            stack.add(new MetricCollectingServerInterceptor(meterRegistry));
+        }
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new CannedStockService(), stack))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = StockTradingServiceGrpc.newBlockingStub(channel);
+        request = StockRequest.newBuilder().setStockSymbol("AAPL").build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public StockResponse getStockPrice() {
+        return stub.getStockPrice(request);
+    }
+}
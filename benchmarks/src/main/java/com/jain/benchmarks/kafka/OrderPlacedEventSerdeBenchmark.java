@@ -0,0 +1,82 @@
+package com.jain.benchmarks.kafka;
+
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.kafka.OrderPlacedEventDeserializer;
+import com.jain.grpc_stock_trading_server.kafka.OrderPlacedEventSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one {@code order-placed} record, JSON versus
+ * protobuf. JSON records carry Spring's type header, so the decode side
+ * goes through the same fallback path the consumer uses for old messages.
+ * Payload size per format is printed once at setup; run with
+ * {@code -prof gc} for allocation per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderPlacedEventSerdeBenchmark {
+
+    private static final String TOPIC = "order-placed";
+
+    @Param({"json", "protobuf"})
+    public String format;
+
+    private Serializer<OrderPlacedEvent> serializer;
+    private Deserializer<OrderPlacedEvent> deserializer;
+    private OrderPlacedEvent event;
+    private RecordHeaders headers;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        serializer = "json".equals(format) ? new JsonSerializer<>() : new OrderPlacedEventSerializer();
+        deserializer = new OrderPlacedEventDeserializer();
+
+        event = OrderPlacedEvent.builder()
+                .orderId(UUID.randomUUID().toString())
+                .stockSymbol("AAPL")
+                .side("BUY")
+                .quantity(150)
+                .orderType("LIMIT")
+                .limitPrice(187.25)
+                .createdAt(Instant.now())
+                .accountId("acct-000042")
+                .build();
+
+        headers = new RecordHeaders();
+        payload = serializer.serialize(TOPIC, headers, event);
+        System.out.printf("%n%s payload: %d bytes%n", format, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public OrderPlacedEvent deserialize() {
+        return deserializer.deserialize(TOPIC, headers, payload);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jain.benchmarks.load;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.repository.OrderRepository;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import com.jain.grpc_stock_trading_server.repository.ReactiveOrderRepository;
+import com.jain.grpc_stock_trading_server.repository.ReactiveStockRepository;
+import com.jain.grpc_stock_trading_server.repository.StockRepository;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories behind the gRPC
+ * service. Only the queries on the request paths are implemented; any
+ * other repository call fails loudly instead of quietly returning nothing.
+ * Like the unique index on {@code orders.orderId}, a second insert of the
+ * same orderId throws {@link DuplicateKeyException}.
+ */
+final class InMemoryMongo {
+
+    private final Map<String, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    void addStock(String stockSymbol, double price) {
+        stocks.put(stockSymbol, Stock.builder()
+                .id(new ObjectId())
+                .stockSymbol(stockSymbol)
+                .price(price)
+                .lastUpdated(LocalDateTime.now())
+                .build());
+    }
+
+    int orderCount() {
+        return orders.size();
+    }
+
+    StockRepository stockRepository() {
+        return repository(StockRepository.class, (name, args) -> switch (name) {
+            case "findByStockSymbol" -> stocks.get((String) args[0]);
+            case "findByStockSymbolIn" -> strings(args[0]).stream()
+                    .map(stocks::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            default -> unsupported(StockRepository.class, name);
+        });
+    }
+
+    ReactiveStockRepository reactiveStockRepository() {
+        return repository(ReactiveStockRepository.class, (name, args) -> switch (name) {
+            case "findByStockSymbol" -> Mono.justOrEmpty(stocks.get((String) args[0]));
+            default -> unsupported(ReactiveStockRepository.class, name);
+        });
+    }
+
+    OrderRepository orderRepository() {
+        return repository(OrderRepository.class, (name, args) -> switch (name) {
+            case "insert" -> insert(args[0]);
+            case "findByOrderId" -> orders.get((String) args[0]);
+            case "findByOrderIdIn" -> strings(args[0]).stream()
+                    .map(orders::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            default -> unsupported(OrderRepository.class, name);
+        });
+    }
+
+    ReactiveOrderRepository reactiveOrderRepository() {
+        return repository(ReactiveOrderRepository.class, (name, args) -> switch (name) {
+            case "findByOrderId" -> Mono.justOrEmpty(orders.get((String) args[0]));
+            default -> unsupported(ReactiveOrderRepository.class, name);
+        });
+    }
+
+    PortfolioRepository portfolioRepository() {
+        return repository(PortfolioRepository.class, (name, args) -> switch (name) {
+            case "findAll" -> List.of();
+            case "claimUnassigned" -> 0L;
+            default -> unsupported(PortfolioRepository.class, name);
+        });
+    }
+
+    private Object insert(Object argument) {
+        if (!(argument instanceof Order order)) {
+            return unsupported(OrderRepository.class, "insert(Iterable)");
+        }
+        if (orders.putIfAbsent(order.getOrderId(), order) != null) {
+            throw new DuplicateKeyException("E11000 duplicate key error: orderId " + order.getOrderId());
+        }
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String> strings(Object argument) {
+        return (Collection<String>) argument;
+    }
+
+    private static Object unsupported(Class<?> repository, String method) {
+        throw new UnsupportedOperationException(repository.getSimpleName() + "." + method + " is not available in memory");
+    }
+
+    private interface Query {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <R> R repository(Class<R> type, Query query) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "toString" -> "InMemory" + type.getSimpleName();
+                    default -> query.answer(method.getName(), args);
+                });
+        return type.cast(proxy);
+    }
+}
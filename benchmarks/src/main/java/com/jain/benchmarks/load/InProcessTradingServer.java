@@ -0,0 +1,136 @@
+package com.jain.benchmarks.load;
+
+import com.jain.grpc_stock_trading_server.cache.RecentOrderIdFilter;
+import com.jain.grpc_stock_trading_server.cache.StockCache;
+import com.jain.grpc_stock_trading_server.config.GrpcMetricsInterceptor;
+import com.jain.grpc_stock_trading_server.kafka.OrderEventProducer;
+import com.jain.grpc_stock_trading_server.kafka.OrderPlacedEventSerializer;
+import com.jain.grpc_stock_trading_server.service.OrderPlacementService;
+import com.jain.grpc_stock_trading_server.service.PriceIngestionService;
+import com.jain.grpc_stock_trading_server.service.StockTradingServiceImpl;
+import com.jain.grpc_stock_trading_server.streaming.InMemoryPriceSource;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.streaming.StockPriceHub;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real {@link StockTradingServiceImpl}, with its cache, price hub,
+ * order-id filter and metrics interceptor, served in-process on the
+ * default gRPC executor. Mongo is replaced by {@link InMemoryMongo};
+ * Kafka by a {@link MockProducer} that still serializes every
+ * {@code OrderPlacedEvent} and then drops it. Price ticks published to it
+ * reach subscribers but are never written anywhere.
+ */
+final class InProcessTradingServer implements AutoCloseable {
+
+    private final String name = InProcessServerBuilder.generateName();
+    private final InMemoryMongo mongo = new InMemoryMongo();
+    private final StockPriceHub stockPriceHub;
+    private final Server server;
+
+    InProcessTradingServer(Collection<String> stockSymbols, long maxStreamSeconds) throws IOException {
+        stockSymbols.forEach(symbol -> mongo.addStock(symbol, ThreadLocalRandom.current().nextDouble(10, 500)));
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockCache stockCache = new StockCache(
+                mongo.stockRepository(), mongo.reactiveStockRepository(), meterRegistry, 10_000, 30, 5);
+        stockPriceHub = new StockPriceHub(new InMemoryPriceSource(), stockCache, meterRegistry, maxStreamSeconds, 2);
+        stockPriceHub.start();
+
+        // Never started and never full: there is no Mongo to flush prices to
+        PriceIngestionService priceIngestionService =
+                new PriceIngestionService(null, stockPriceHub, Integer.MAX_VALUE, 100);
+        RecentOrderIdFilter recentOrderIdFilter =
+                new RecentOrderIdFilter(meterRegistry, true, 1_000_000, 0.01, 300, 30, 100_000);
+        OrderLifecycleMetrics lifecycleMetrics =
+                new OrderLifecycleMetrics(meterRegistry, new long[]{1, 5, 10, 25, 50, 100, 250, 500, 1000});
+        OrderEventProducer orderEventProducer = new OrderEventProducer(kafkaTemplate(), lifecycleMetrics);
+        OrderPlacementService orderPlacementService = new OrderPlacementService(
+                stockCache, mongo.orderRepository(), recentOrderIdFilter, orderEventProducer, lifecycleMetrics, 1000);
+
+        StockTradingServiceImpl service = new StockTradingServiceImpl(
+                stockCache,
+                mongo.orderRepository(),
+                mongo.reactiveOrderRepository(),
+                orderEventProducer,
+                stockPriceHub,
+                priceIngestionService,
+                orderPlacementService,
+                recentOrderIdFilter,
+                lifecycleMetrics,
+                // Nothing executes orders here, so there is nothing to re-read
+                new OrderStatusHub(mongo.orderRepository(), meterRegistry, 0),
+                portfolioView(meterRegistry),
+                50, 500, "reactive");
+
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.intercept(service, new GrpcMetricsInterceptor(meterRegistry)))
+                .build()
+                .start();
+    }
+
+    ManagedChannel newChannel() {
+        return InProcessChannelBuilder.forName(name).build();
+    }
+
+    int storedOrders() {
+        return mongo.orderCount();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stockPriceHub.stop();
+        server.shutdown();
+        if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+    }
+
+    private PortfolioView portfolioView(MeterRegistry meterRegistry) {
+        PortfolioView portfolioView = new PortfolioView(mongo.portfolioRepository(), meterRegistry, 0);
+        portfolioView.start();
+        return portfolioView;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static KafkaTemplate<String, Object> kafkaTemplate() {
+        Serializer<Object> valueSerializer = (Serializer) new OrderPlacedEventSerializer();
+        MockProducer<String, Object> producer = new MockProducer<>(true, new StringSerializer(), valueSerializer) {
+            @Override
+            public synchronized Future<RecordMetadata> send(ProducerRecord<String, Object> record, Callback callback) {
+                Future<RecordMetadata> sent = super.send(record, callback);
+                // Don't keep the history: this runs for millions of orders
+                clear();
+                return sent;
+            }
+
+            @Override
+            public void close(Duration timeout) {
+                // KafkaTemplate closes its producer after every send
+            }
+        };
+        return new KafkaTemplate<>(() -> producer);
+    }
+}
@@ -0,0 +1,206 @@
+package com.jain.benchmarks.load;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Open-loop load against the trading service: unary calls at a fixed
+ * arrival rate (see {@link OpenLoopDriver}) plus many long-lived price
+ * streams (see {@link PriceStreams}), with an HDR latency histogram per
+ * call. By default the server runs in-process on in-memory Mongo and
+ * Kafka, so it needs no network:
+ * <pre>
+ * java -cp benchmarks.jar com.jain.benchmarks.load.LoadGenerator --rate=2000 --streams=500 --duration-seconds=60
+ * </pre>
+ * Options, all {@code --name=value}:
+ * <ul>
+ *   <li>{@code target}: {@code host:port} of a running server instead of the in-process one</li>
+ *   <li>{@code rate}: unary calls per second, all kinds together (1000)</li>
+ *   <li>{@code mix}: relative weights of the unary calls ({@code getStockPrice=60,placeOrder=20,getOrder=20})</li>
+ *   <li>{@code duration-seconds} (30) and {@code warmup-seconds} (10, not reported)</li>
+ *   <li>{@code streams}: concurrent {@code subscribeStockPrice} streams (200),
+ *       opened {@code stream-open-rate} per second (100)</li>
+ *   <li>{@code tick-rate}: price ticks published per second (500)</li>
+ *   <li>{@code symbols}: how many symbols the in-process server gets (100),
+ *       or a comma-separated list of existing symbols for {@code target}</li>
+ *   <li>{@code deadline-ms}: deadline of every unary call (5000)</li>
+ *   <li>{@code max-stream-seconds}: in-process stream lifetime before a reconnect (30)</li>
+ *   <li>{@code hgrm-dir}: also write each histogram's percentile distribution there</li>
+ * </ul>
+ * All latencies are measured from when a call was due, not when it was
+ * sent, so they are corrected for coordinated omission.
+ */
+public final class LoadGenerator {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("target", ""),
+            Map.entry("rate", "1000"),
+            Map.entry("mix", "getStockPrice=60,placeOrder=20,getOrder=20"),
+            Map.entry("duration-seconds", "30"),
+            Map.entry("warmup-seconds", "10"),
+            Map.entry("streams", "200"),
+            Map.entry("stream-open-rate", "100"),
+            Map.entry("tick-rate", "500"),
+            Map.entry("symbols", "100"),
+            Map.entry("deadline-ms", "5000"),
+            Map.entry("max-stream-seconds", "30"),
+            Map.entry("hgrm-dir", "")
+    );
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String target = options.get("target");
+        List<String> symbols = symbols(options.get("symbols"), target.isEmpty());
+
+        InProcessTradingServer inProcess = target.isEmpty()
+                ? new InProcessTradingServer(symbols, Long.parseLong(options.get("max-stream-seconds")))
+                : null;
+        ManagedChannel channel = inProcess != null
+                ? inProcess.newChannel()
+                : ManagedChannelBuilder.forTarget(target).usePlaintext().build();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "load-streams");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            UnaryCalls unary = new UnaryCalls(channel, symbols, Long.parseLong(options.get("deadline-ms")));
+            PriceStreams streams = new PriceStreams(channel, symbols, scheduler);
+            Map<String, Integer> mix = mix(options.get("mix"));
+            OpenLoopDriver driver = new OpenLoopDriver(List.of(
+                    new OpenLoopDriver.Call(mix.getOrDefault("getStockPrice", 0), unary::getStockPrice),
+                    new OpenLoopDriver.Call(mix.getOrDefault("placeOrder", 0), unary::placeOrder),
+                    new OpenLoopDriver.Call(mix.getOrDefault("getOrder", 0), unary::getOrder)
+            ), Double.parseDouble(options.get("rate")));
+
+            List<RpcStats> stats = new ArrayList<>(unary.stats());
+            stats.addAll(streams.stats());
+
+            System.out.printf("Target %s, %s unary calls/s (%s), %s streams, %s ticks/s%n",
+                    inProcess != null ? "in-process (in-memory Mongo and Kafka)" : target,
+                    options.get("rate"), options.get("mix"), options.get("streams"), options.get("tick-rate"));
+
+            unary.seedOrders(100);
+            streams.start(Integer.parseInt(options.get("streams")),
+                    Double.parseDouble(options.get("stream-open-rate")),
+                    Double.parseDouble(options.get("tick-rate")));
+
+            long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup-seconds")));
+            long measureNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration-seconds")));
+            long start = System.nanoTime();
+            driver.run(start, start + warmupNanos);
+            long measureStart = System.nanoTime();
+            stats.forEach(stat -> stat.reset(measureStart));
+
+            long worstLag = driver.run(measureStart, measureStart + measureNanos);
+            long measuredNanos = System.nanoTime() - measureStart;
+
+            // Let calls still in flight finish; they belong to this run
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (unary.inFlight() > 0 && System.nanoTime() < drainUntil) {
+                Thread.sleep(10);
+            }
+            int openStreams = streams.openStreams();
+            streams.stop();
+
+            report(stats, measuredNanos, openStreams, worstLag, options.get("hgrm-dir"));
+            if (inProcess != null) {
+                System.out.printf("Orders stored in memory: %d%n", inProcess.storedOrders());
+            }
+        } finally {
+            scheduler.shutdownNow();
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            if (inProcess != null) {
+                inProcess.close();
+            }
+        }
+    }
+
+    private static void report(List<RpcStats> stats, long measuredNanos, int openStreams, long worstLag,
+                               String hgrmDir) throws FileNotFoundException {
+        double seconds = measuredNanos / 1e9;
+        System.out.printf("%nMeasured %.1f s, %d streams open at the end, sender at worst %.1f ms behind schedule%n",
+                seconds, openStreams, worstLag / 1e6);
+        System.out.printf("%-20s %10s %10s %10s %10s %10s %10s %10s%n",
+                "call", "count", "per sec", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+
+        for (RpcStats stat : stats) {
+            Histogram histogram = stat.drain();
+            Map<Status.Code, Long> errors = stat.errors();
+            long errorCount = errors.values().stream().mapToLong(Long::longValue).sum();
+            System.out.printf("%-20s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10d%n",
+                    stat.name(),
+                    histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    errorCount);
+            if (errorCount > 0) {
+                System.out.printf("%-20s %s%n", "", errors);
+            }
+            if (!hgrmDir.isEmpty()) {
+                File dir = new File(hgrmDir);
+                dir.mkdirs();
+                try (PrintStream out = new PrintStream(new File(dir, stat.name() + ".hgrm"))) {
+                    histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+        System.out.println("Latencies include time spent waiting behind a stalled sender or server (coordinated omission corrected).");
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                System.err.println("Unknown option " + arg + "; known: " + String.join(", ", DEFAULTS.keySet()));
+                System.exit(2);
+            }
+            options.put(name, arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static List<String> symbols(String option, boolean inProcess) {
+        if (option.chars().allMatch(Character::isDigit)) {
+            if (!inProcess) {
+                throw new IllegalArgumentException("--symbols must list existing symbols when --target is set");
+            }
+            return IntStream.range(0, Integer.parseInt(option)).mapToObj(i -> String.format("LG%04d", i)).toList();
+        }
+        return Arrays.stream(option.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static Map<String, Integer> mix(String option) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : option.split(",")) {
+            String[] parts = entry.split("=");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jain.benchmarks.load;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Starts calls at a fixed arrival rate, whatever the server does.
+ * <p>
+ * The i-th call is due at {@code start + i / rate}. Calls are asynchronous,
+ * so a slow server never holds back the next send, and if this thread
+ * itself falls behind (GC, a busy CPU) the overdue calls go out at once.
+ * Each call is handed the time it was due, and latency is measured from
+ * there rather than from the actual send: a stall shows up in every call
+ * it delayed, which is the correction for coordinated omission.
+ */
+final class OpenLoopDriver {
+
+    /**
+     * One kind of call in the mix; {@code start} is given the due time
+     * in {@link System#nanoTime} and must not block.
+     */
+    record Call(int weight, LongConsumer start) {
+    }
+
+    private final List<Call> calls;
+    private final int totalWeight;
+    private final double ratePerSecond;
+
+    OpenLoopDriver(List<Call> calls, double ratePerSecond) {
+        this.calls = calls.stream().filter(call -> call.weight() > 0).toList();
+        this.totalWeight = this.calls.stream().mapToInt(Call::weight).sum();
+        this.ratePerSecond = ratePerSecond;
+        if (this.calls.isEmpty() || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Need a positive rate and at least one call with a positive weight");
+        }
+    }
+
+    /**
+     * Send calls on the calling thread until {@code endNanos}.
+     *
+     * @return how far behind schedule the sender was at worst, in nanoseconds
+     */
+    long run(long startNanos, long endNanos) {
+        double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long worstLag = 0;
+
+        for (long i = 0; ; i++) {
+            long due = startNanos + (long) (i * intervalNanos);
+            if (due >= endNanos) {
+                return worstLag;
+            }
+            long now = System.nanoTime();
+            if (due > now) {
+                LockSupport.parkNanos(due - now);
+            } else {
+                worstLag = Math.max(worstLag, now - due);
+            }
+            pick().start().accept(due);
+        }
+    }
+
+    private Call pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Call call : calls) {
+            ticket -= call.weight();
+            if (ticket < 0) {
+                return call;
+            }
+        }
+        return calls.get(calls.size() - 1);
+    }
+}
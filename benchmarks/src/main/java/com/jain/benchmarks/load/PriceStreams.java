@@ -0,0 +1,175 @@
+package com.jain.benchmarks.load;
+
+import com.jain.grpc.PriceTick;
+import com.jain.grpc.PublishPricesResponse;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many concurrent {@code subscribeStockPrice} streams, kept open for the
+ * whole run, plus one {@code PublishPrices} feed that moves their prices.
+ * <p>
+ * Streams are opened at a fixed rate and reopened as soon as the server
+ * ends them (it caps how long a stream lives). The time from when a
+ * stream was due to its first price goes to {@code subscribeStockPrice};
+ * the age of every later price, from its tick timestamp to arrival, goes
+ * to {@code priceUpdate}. Tick timestamps are truncated to milliseconds
+ * by the server, so {@code priceUpdate} is only good to about 1 ms, and
+ * it assumes the server's clock is this machine's.
+ */
+final class PriceStreams {
+
+    final RpcStats subscribe = new RpcStats("subscribeStockPrice");
+    final RpcStats priceUpdate = new RpcStats("priceUpdate");
+
+    private final StockTradingServiceGrpc.StockTradingServiceStub stub;
+    private final List<String> stockSymbols;
+    private final ScheduledExecutorService scheduler;
+    private final Set<ClientCallStreamObserver<StockRequest>> open = ConcurrentHashMap.newKeySet();
+    private final Map<String, Double> prices = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSymbol = new AtomicInteger();
+    private volatile boolean stopped;
+    private StreamObserver<PriceTick> feed;
+
+    PriceStreams(Channel channel, List<String> stockSymbols, ScheduledExecutorService scheduler) {
+        this.stub = StockTradingServiceGrpc.newStub(channel);
+        this.stockSymbols = stockSymbols;
+        this.scheduler = scheduler;
+    }
+
+    List<RpcStats> stats() {
+        return List.of(subscribe, priceUpdate);
+    }
+
+    int openStreams() {
+        return open.size();
+    }
+
+    /**
+     * Open {@code count} streams, {@code openRate} per second, and start
+     * publishing {@code tickRate} price ticks per second to random symbols.
+     */
+    void start(int count, double openRate, double tickRate) {
+        long start = System.nanoTime();
+        double openInterval = 1_000_000_000.0 / openRate;
+        for (int i = 0; i < count; i++) {
+            long due = start + (long) (i * openInterval);
+            scheduler.schedule(() -> subscribe(due), due - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (tickRate > 0) {
+            feed = stub.publishPrices(new StreamObserver<>() {
+                @Override
+                public void onNext(PublishPricesResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    if (!stopped) {
+                        System.err.println("Price feed failed: " + Status.fromThrowable(t));
+                    }
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            });
+            long tickNanos = (long) (1_000_000_000.0 / tickRate);
+            scheduler.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void stop() {
+        stopped = true;
+        open.forEach(stream -> stream.cancel("load run finished", null));
+        open.clear();
+        if (feed != null) {
+            synchronized (this) {
+                feed.onCompleted();
+            }
+        }
+    }
+
+    private void subscribe(long dueNanos) {
+        if (stopped) {
+            return;
+        }
+        String symbol = stockSymbols.get(Math.floorMod(nextSymbol.getAndIncrement(), stockSymbols.size()));
+
+        stub.subscribeStockPrice(StockRequest.newBuilder().setStockSymbol(symbol).build(),
+                new ClientResponseObserver<StockRequest, StockResponse>() {
+                    private ClientCallStreamObserver<StockRequest> call;
+                    private boolean first = true;
+
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<StockRequest> requestStream) {
+                        call = requestStream;
+                        open.add(requestStream);
+                    }
+
+                    @Override
+                    public void onNext(StockResponse price) {
+                        if (first) {
+                            first = false;
+                            subscribe.completed(dueNanos);
+                            return;
+                        }
+                        Duration age = Duration.between(LocalDateTime.parse(price.getTimestamp()), LocalDateTime.now());
+                        priceUpdate.recordMicros(TimeUnit.NANOSECONDS.toMicros(age.toNanos()));
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        open.remove(call);
+                        if (stopped) {
+                            return;
+                        }
+                        if (first) {
+                            subscribe.failed(dueNanos, t);
+                        }
+                        // Back off a little so a dead server is not hammered
+                        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+                        scheduler.schedule(() -> subscribe(due), 100, TimeUnit.MILLISECONDS);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        open.remove(call);
+                        if (!stopped) {
+                            subscribe(System.nanoTime());
+                        }
+                    }
+                });
+    }
+
+    private synchronized void tick() {
+        if (stopped) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String symbol = stockSymbols.get(random.nextInt(stockSymbols.size()));
+        double price = prices.merge(symbol, 100.0, (last, ignored) -> Math.max(1.0, last * (1 + random.nextGaussian() * 0.001)));
+        feed.onNext(PriceTick.newBuilder()
+                .setStockSymbol(symbol)
+                .setPrice(price)
+                .setTimestamp(LocalDateTime.now().toString())
+                .build());
+    }
+}
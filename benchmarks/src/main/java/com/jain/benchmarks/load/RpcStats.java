@@ -0,0 +1,79 @@
+package com.jain.benchmarks.load;
+
+import io.grpc.Status;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error counts for one kind of call, safe to record
+ * from any thread. Latencies are kept in microseconds at three significant
+ * digits. Failed calls are recorded too: a timeout is a latency the caller
+ * waited through.
+ */
+final class RpcStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    private final Map<Status.Code, LongAdder> errors = new ConcurrentHashMap<>();
+    private volatile long recordFromNanos = System.nanoTime();
+
+    RpcStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Record a call that was due at {@code dueNanos} ({@link System#nanoTime})
+     * and has just completed.
+     */
+    void completed(long dueNanos) {
+        if (dueNanos - recordFromNanos < 0) {
+            return;
+        }
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+    }
+
+    void failed(long dueNanos, Throwable error) {
+        if (dueNanos - recordFromNanos < 0) {
+            return;
+        }
+        completed(dueNanos);
+        errors.computeIfAbsent(Status.fromThrowable(error).getCode(), code -> new LongAdder()).increment();
+    }
+
+    void recordMicros(long micros) {
+        recorder.recordValue(Math.max(0, micros));
+    }
+
+    /**
+     * Forget everything recorded so far and ignore calls that were due
+     * before {@code fromNanos}, e.g. those sent during the warmup.
+     */
+    void reset(long fromNanos) {
+        recordFromNanos = fromNanos;
+        recorder.reset();
+        errors.clear();
+    }
+
+    /**
+     * Everything recorded since the last call (or reset).
+     */
+    Histogram drain() {
+        return recorder.getIntervalHistogram();
+    }
+
+    Map<Status.Code, Long> errors() {
+        Map<Status.Code, Long> counts = new TreeMap<>();
+        errors.forEach((code, count) -> counts.put(code, count.sum()));
+        return counts;
+    }
+}
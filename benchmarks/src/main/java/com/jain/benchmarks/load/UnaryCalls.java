@@ -0,0 +1,143 @@
+package com.jain.benchmarks.load;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jain.grpc.GetOrderRequest;
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderType;
+import com.jain.grpc.PlaceOrderRequest;
+import com.jain.grpc.PlaceOrderResponse;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.Channel;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The unary calls of the load mix. {@code GetOrder} asks for orders this
+ * run placed recently, so it always hits; {@code PlaceOrder} uses a fresh
+ * orderId every time.
+ */
+final class UnaryCalls {
+
+    private static final int RECENT_ORDERS = 4096;
+
+    final RpcStats getStockPrice = new RpcStats("getStockPrice");
+    final RpcStats placeOrder = new RpcStats("placeOrder");
+    final RpcStats getOrder = new RpcStats("getOrder");
+
+    private final StockTradingServiceGrpc.StockTradingServiceFutureStub stub;
+    private final List<String> stockSymbols;
+    private final long deadlineMillis;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final AtomicReferenceArray<String> recentOrderIds = new AtomicReferenceArray<>(RECENT_ORDERS);
+    private final AtomicLong placedOrders = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    UnaryCalls(Channel channel, List<String> stockSymbols, long deadlineMillis) {
+        this.stub = StockTradingServiceGrpc.newFutureStub(channel);
+        this.stockSymbols = stockSymbols;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    List<RpcStats> stats() {
+        return List.of(getStockPrice, placeOrder, getOrder);
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    void getStockPrice(long dueNanos) {
+        StockRequest request = StockRequest.newBuilder().setStockSymbol(randomSymbol()).build();
+        track(stub().getStockPrice(request), getStockPrice, dueNanos, response -> {
+        });
+    }
+
+    void placeOrder(long dueNanos) {
+        PlaceOrderRequest request = newOrder();
+        track(stub().placeOrder(request), placeOrder, dueNanos, this::remember);
+    }
+
+    void getOrder(long dueNanos) {
+        String orderId = recentOrderId();
+        if (orderId == null) {
+            // Nothing placed yet: place one instead so the schedule is kept
+            placeOrder(dueNanos);
+            return;
+        }
+        track(stub().getOrder(GetOrderRequest.newBuilder().setOrderId(orderId).build()), getOrder, dueNanos, response -> {
+        });
+    }
+
+    /**
+     * Place a few orders up front and wait for them, so {@code GetOrder}
+     * has something to read from the first second.
+     */
+    void seedOrders(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            remember(stub().placeOrder(newOrder()).get(deadlineMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private StockTradingServiceGrpc.StockTradingServiceFutureStub stub() {
+        return stub.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> void track(ListenableFuture<T> call, RpcStats stats, long dueNanos, Consumer<T> onSuccess) {
+        inFlight.incrementAndGet();
+        Futures.addCallback(call, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                stats.completed(dueNanos);
+                inFlight.decrementAndGet();
+                onSuccess.accept(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                stats.failed(dueNanos, t);
+                inFlight.decrementAndGet();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private PlaceOrderRequest newOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return PlaceOrderRequest.newBuilder()
+                .setOrderId("load-" + runId + "-" + orderSequence.incrementAndGet())
+                .setStockSymbol(randomSymbol())
+                .setSide(random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL)
+                .setQuantity(1 + random.nextInt(100))
+                .setOrderType(OrderType.MARKET)
+                .build();
+    }
+
+    private void remember(PlaceOrderResponse response) {
+        long slot = placedOrders.getAndIncrement();
+        recentOrderIds.set((int) (slot % RECENT_ORDERS), response.getOrderId());
+    }
+
+    private String recentOrderId() {
+        long placed = placedOrders.get();
+        if (placed == 0) {
+            return null;
+        }
+        int slot = ThreadLocalRandom.current().nextInt((int) Math.min(placed, RECENT_ORDERS));
+        return recentOrderIds.get(slot);
+    }
+
+    private String randomSymbol() {
+        return stockSymbols.get(ThreadLocalRandom.current().nextInt(stockSymbols.size()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.jain.benchmarks.matching;
+
+import com.jain.grpc_stock_trading_server.matching.FillListener;
+import com.jain.grpc_stock_trading_server.matching.OrderBook;
+import com.jain.grpc_stock_trading_server.matching.PriceTicks;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded throughput of one {@link OrderBook}.
+ * <p>
+ * Buy and sell limit orders are drawn around a fixed mid price so that a
+ * large share of them cross; the book size stays roughly stable. The
+ * {@code fills} aux counter reports matches per second next to orders per
+ * second. Run with {@code -prof gc} to confirm zero allocation per op.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    private static final int ORDER_COUNT = 1 << 16;
+    private static final long MID = PriceTicks.toTicks(100.00);
+
+    @Param({"20", "100"})
+    public int priceSpreadTicks;
+
+    private OrderBook book;
+    private boolean[] buys;
+    private long[] prices;
+    private int[] quantities;
+    private int cursor;
+    private long nextRef;
+
+    private FillCounters counters;
+    private FillListener listener;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FillCounters {
+        public long fills;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            fills = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        buys = new boolean[ORDER_COUNT];
+        prices = new long[ORDER_COUNT];
+        quantities = new int[ORDER_COUNT];
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            buys[i] = random.nextBoolean();
+            prices[i] = MID + random.nextInt(-priceSpreadTicks, priceSpreadTicks + 1);
+            quantities[i] = 1 + random.nextInt(100);
+        }
+
+        book = new OrderBook("BENCH", ORDER_COUNT, 4 * priceSpreadTicks);
+
+        // Seed both sides so the first orders have something to hit
+        for (int i = 0; i < ORDER_COUNT / 4; i++) {
+            book.submit(++nextRef, buys[i], buys[i] ? MID - 1 - (i % priceSpreadTicks) : MID + 1 + (i % priceSpreadTicks),
+                    quantities[i], (maker, taker, price, qty, makerLeft, takerLeft) -> { });
+        }
+    }
+
+    @Benchmark
+    public int submit(FillCounters fillCounters) {
+        if (counters != fillCounters) {
+            counters = fillCounters;
+            listener = (maker, taker, price, qty, makerLeft, takerLeft) -> counters.fills++;
+        }
+
+        int i = cursor;
+        cursor = (i + 1) & (ORDER_COUNT - 1);
+        return book.submit(++nextRef, buys[i], prices[i], quantities[i], listener);
+    }
+}
@@ -0,0 +1,107 @@
+package com.jain.benchmarks.proto;
+
+import com.jain.grpc.GetPortfolioResponse;
+import com.jain.grpc.Holding;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.streaming.StockPriceHub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning entities into wire bytes on the read path: building
+ * {@code StockResponse} / {@code GetPortfolioResponse} the way the service
+ * does, and serializing them. {@code build*} and {@code serialize*} split
+ * the total so a regression can be pinned to one side. Run with
+ * {@code -prof gc} for allocation per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int holdings;
+
+    private Stock stock;
+    private Portfolio portfolio;
+    private StockResponse stockResponse;
+    private GetPortfolioResponse portfolioResponse;
+
+    @Setup
+    public void setup() {
+        stock = Stock.builder()
+                .stockSymbol("AAPL")
+                .price(182.36)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < holdings; i++) {
+            positions.put("SYM" + i, 10 + i);
+        }
+        portfolio = Portfolio.builder()
+                .holdings(positions)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+
+        stockResponse = buildStockResponse();
+        portfolioResponse = buildPortfolioResponse();
+    }
+
+    @Benchmark
+    public StockResponse buildStockResponse() {
+        return StockPriceHub.toResponse(stock);
+    }
+
+    @Benchmark
+    public byte[] serializeStockResponse() {
+        return stockResponse.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeStockResponse() {
+        return StockPriceHub.toResponse(stock).toByteArray();
+    }
+
+    /**
+     * Same shape as {@code StockTradingServiceImpl.toPortfolioResponse}.
+     */
+    @Benchmark
+    public GetPortfolioResponse buildPortfolioResponse() {
+        GetPortfolioResponse.Builder builder = GetPortfolioResponse.newBuilder()
+                .setLastUpdated(portfolio.getLastUpdated().toString());
+        portfolio.getHoldings().forEach((symbol, qty) ->
+                builder.addHoldings(
+                        Holding.newBuilder()
+                                .setStockSymbol(symbol)
+                                .setQuantity(qty)
+                                .build()
+                )
+        );
+        return builder.build();
+    }
+
+    @Benchmark
+    public byte[] serializePortfolioResponse() {
+        return portfolioResponse.toByteArray();
+    }
+}
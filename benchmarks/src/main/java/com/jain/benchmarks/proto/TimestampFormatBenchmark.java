@@ -0,0 +1,56 @@
+package com.jain.benchmarks.proto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamp formatting on the response path. Every {@code StockResponse}
+ * and order/portfolio response carries {@code LocalDateTime.toString()};
+ * the other variants are candidates for replacing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TimestampFormatBenchmark {
+
+    private LocalDateTime timestamp;
+
+    @Setup
+    public void setup() {
+        timestamp = LocalDateTime.now();
+    }
+
+    /**
+     * What the services use today.
+     */
+    @Benchmark
+    public String localDateTimeToString() {
+        return timestamp.toString();
+    }
+
+    @Benchmark
+    public String isoFormatter() {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp);
+    }
+
+    @Benchmark
+    public long epochMillis() {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
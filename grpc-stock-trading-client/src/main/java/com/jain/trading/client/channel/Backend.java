@@ -0,0 +1,123 @@
+package com.jain.trading.client.channel;
+
+import io.grpc.ManagedChannel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * One server replica: N sub-channels (one HTTP/2 connection each) and
+ * its in-flight count and latency meters.
+ */
+final class Backend {
+
+    private final String address;
+    private final List<ManagedChannel> subChannels;
+    private final AtomicInteger[] subInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong next = new AtomicLong();
+
+    private final MeterRegistry meterRegistry;
+    private final Gauge inFlightGauge;
+    private final Timer latency;
+
+    Backend(String target, String address, int subChannelCount,
+            Function<String, ManagedChannel> channelFactory, MeterRegistry meterRegistry) {
+        this.address = address;
+        this.subChannels = IntStream.range(0, subChannelCount).mapToObj(i -> channelFactory.apply(address)).toList();
+        this.subInFlight = IntStream.range(0, subChannelCount).mapToObj(i -> new AtomicInteger()).toArray(AtomicInteger[]::new);
+        this.meterRegistry = meterRegistry;
+
+        this.inFlightGauge = Gauge.builder("grpc_client_backend_in_flight", inFlight, AtomicInteger::get)
+                .description("Calls currently open on a server replica")
+                .tag("target", target)
+                .tag("backend", address)
+                .register(meterRegistry);
+        this.latency = Timer.builder("grpc_client_backend_latency")
+                .description("Unary call latency per server replica")
+                .tag("target", target)
+                .tag("backend", address)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    String address() {
+        return address;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Sub-channel with the fewest open calls, scanning from a rotating
+     * offset so ties spread across connections.
+     */
+    int pickSubChannel() {
+        int n = subChannels.size();
+        int start = (int) (next.getAndIncrement() % n);
+        int best = start;
+        for (int i = 1; i < n; i++) {
+            int candidate = (start + i) % n;
+            if (subInFlight[candidate].get() < subInFlight[best].get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    ManagedChannel subChannel(int index) {
+        return subChannels.get(index);
+    }
+
+    void callStarted(int subChannel) {
+        inFlight.incrementAndGet();
+        subInFlight[subChannel].incrementAndGet();
+    }
+
+    void callFinished(int subChannel) {
+        inFlight.decrementAndGet();
+        subInFlight[subChannel].decrementAndGet();
+    }
+
+    void recordLatency(long nanos) {
+        latency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop taking calls. Open calls keep running until
+     * {@link #awaitTermination} gives up on them.
+     */
+    void shutdown() {
+        meterRegistry.remove(inFlightGauge);
+        meterRegistry.remove(latency);
+        subChannels.forEach(ManagedChannel::shutdown);
+    }
+
+    /**
+     * Wait for open calls to finish within the grace period, then cancel
+     * the rest. Blocks, so callers keep this off the path of new calls.
+     */
+    void awaitTermination(Duration gracePeriod) {
+        long deadline = System.nanoTime() + gracePeriod.toNanos();
+        for (ManagedChannel channel : subChannels) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    channel.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                channel.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jain.trading.client.channel;
+
+/**
+ * How a {@link PooledChannel} picks the backend for a new call.
+ */
+public enum BalancingPolicy {
+
+    /**
+     * Rotate through backends in order.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Pick the backend with the fewest calls in flight; a slow replica
+     * accumulates calls and therefore receives fewer new ones.
+     */
+    LEAST_OUTSTANDING
+}
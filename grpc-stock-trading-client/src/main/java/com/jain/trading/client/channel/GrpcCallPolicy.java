@@ -0,0 +1,109 @@
+package com.jain.trading.client.channel;
+
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.Deadline;
+import io.grpc.ManagedChannelBuilder;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadlines and retries for {@code StockTradingService} calls, installed
+ * on every client channel as its default gRPC service config.
+ * <p>
+ * Every method has a deadline, sent to the server as {@code grpc-timeout}
+ * so it can abandon work nobody waits for. Reads and {@code PlaceOrder}
+ * are retried on {@code UNAVAILABLE} with exponential backoff, under a
+ * retry budget so an outage does not multiply load.
+ * <p>
+ * {@code PlaceOrder} is retry-safe because orders are keyed by the
+ * client-chosen {@code order_id}: a repeated attempt cannot create a
+ * second order, and {@code StockClientService} resolves the resulting
+ * {@code ALREADY_EXISTS} against the stored order. {@code PlaceOrders} is
+ * not retried, since a partly applied basket would come back as
+ * duplicates; callers resubmit it with the same ids instead.
+ */
+@Component
+public class GrpcCallPolicy implements GrpcChannelConfigurer {
+
+    public static final String GET_STOCK_PRICE = "GetStockPrice";
+    public static final String GET_STOCK_PRICES = "GetStockPrices";
+    public static final String GET_ORDER = "GetOrder";
+    public static final String GET_PORTFOLIO = "GetPortfolio";
+    public static final String PLACE_ORDER = "PlaceOrder";
+    public static final String PLACE_ORDERS = "PlaceOrders";
+
+    private final Map<String, Long> deadlineMillis = new LinkedHashMap<>();
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public GrpcCallPolicy(@Value("${trading.grpc.deadline.get-stock-price-ms:500}") long getStockPriceMillis,
+                          @Value("${trading.grpc.deadline.get-stock-prices-ms:1000}") long getStockPricesMillis,
+                          @Value("${trading.grpc.deadline.get-order-ms:1000}") long getOrderMillis,
+                          @Value("${trading.grpc.deadline.get-portfolio-ms:1000}") long getPortfolioMillis,
+                          @Value("${trading.grpc.deadline.place-order-ms:3000}") long placeOrderMillis,
+                          @Value("${trading.grpc.deadline.place-orders-ms:10000}") long placeOrdersMillis,
+                          @Value("${trading.grpc.retry.max-attempts:3}") int maxAttempts,
+                          @Value("${trading.grpc.retry.initial-backoff-ms:50}") long initialBackoffMillis,
+                          @Value("${trading.grpc.retry.max-backoff-ms:500}") long maxBackoffMillis) {
+        deadlineMillis.put(GET_STOCK_PRICE, getStockPriceMillis);
+        deadlineMillis.put(GET_STOCK_PRICES, getStockPricesMillis);
+        deadlineMillis.put(GET_ORDER, getOrderMillis);
+        deadlineMillis.put(GET_PORTFOLIO, getPortfolioMillis);
+        deadlineMillis.put(PLACE_ORDER, placeOrderMillis);
+        deadlineMillis.put(PLACE_ORDERS, placeOrdersMillis);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Deadline for a call to {@code method} starting now. Hedged attempts
+     * share it, so a hedge never extends the caller's wait.
+     */
+    public Deadline deadline(String method) {
+        return Deadline.after(deadlineMillis.get(method), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void accept(ManagedChannelBuilder<?> builder, String name) {
+        builder.defaultServiceConfig(serviceConfig()).enableRetry();
+    }
+
+    /**
+     * Service config in the JSON-as-Map form gRPC expects (numbers as doubles).
+     */
+    public Map<String, Object> serviceConfig() {
+        List<Map<String, Object>> methodConfigs = new ArrayList<>();
+        deadlineMillis.forEach((method, millis) -> {
+            Map<String, Object> methodConfig = new LinkedHashMap<>();
+            methodConfig.put("name", List.of(Map.of("service", StockTradingServiceGrpc.SERVICE_NAME, "method", method)));
+            methodConfig.put("timeout", seconds(millis));
+            if (!PLACE_ORDERS.equals(method) && maxAttempts > 1) {
+                methodConfig.put("retryPolicy", Map.of(
+                        "maxAttempts", (double) maxAttempts,
+                        "initialBackoff", seconds(initialBackoffMillis),
+                        "maxBackoff", seconds(maxBackoffMillis),
+                        "backoffMultiplier", 2.0,
+                        "retryableStatusCodes", List.of("UNAVAILABLE")));
+            }
+            methodConfigs.add(methodConfig);
+        });
+
+        return Map.of(
+                "methodConfig", methodConfigs,
+                // Retries pause after a burst of failures and resume as calls succeed
+                "retryThrottling", Map.of("maxTokens", 10.0, "tokenRatio", 0.1));
+    }
+
+    private static String seconds(long millis) {
+        return (millis / 1000.0) + "s";
+    }
+}
@@ -0,0 +1,264 @@
+package com.jain.trading.client.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Client-side balancing over a set of server replicas, each reached
+ * through several sub-channels.
+ * <p>
+ * A single channel keeps every call on one HTTP/2 connection to one
+ * replica, so it is capped by that connection's concurrent-stream limit
+ * and never spreads load to replicas added later. Here each call picks a
+ * replica by {@link BalancingPolicy} and then the least busy of its
+ * sub-channels. The replica list can be replaced at any time; removed
+ * replicas finish their open calls before their channels close, waited
+ * for on a separate drain thread so the caller never blocks on them.
+ * <p>
+ * Exported per replica: {@code grpc_client_backend_in_flight} and
+ * {@code grpc_client_backend_latency} (unary calls), tagged with
+ * {@code target} and {@code backend}.
+ */
+@Slf4j
+public class PooledChannel extends Channel {
+
+    private static final ExecutorService DRAINER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "grpc-pool-drain");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String target;
+    private final BalancingPolicy policy;
+    private final int subChannels;
+    private final Duration shutdownGracePeriod;
+    private final Function<String, ManagedChannel> channelFactory;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong next = new AtomicLong();
+    private volatile List<Backend> backends = List.of();
+
+    public PooledChannel(String target,
+                         BalancingPolicy policy,
+                         int subChannels,
+                         Duration shutdownGracePeriod,
+                         Function<String, ManagedChannel> channelFactory,
+                         MeterRegistry meterRegistry) {
+        if (subChannels < 1) {
+            throw new IllegalArgumentException("subChannels must be >= 1");
+        }
+        this.target = target;
+        this.policy = policy;
+        this.subChannels = subChannels;
+        this.shutdownGracePeriod = shutdownGracePeriod;
+        this.channelFactory = channelFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Replace the replica list. Replicas already in the pool keep their
+     * connections; new ones are connected, missing ones drained in the
+     * background.
+     */
+    public synchronized void setBackends(Collection<String> addresses) {
+        Map<String, Backend> current = backends.stream().collect(Collectors.toMap(Backend::address, b -> b));
+        List<Backend> updated = new ArrayList<>();
+        boolean added = false;
+        for (String address : new LinkedHashSet<>(addresses)) {
+            Backend existing = current.remove(address);
+            if (existing == null) {
+                existing = new Backend(target, address, subChannels, channelFactory, meterRegistry);
+                added = true;
+            }
+            updated.add(existing);
+        }
+        backends = List.copyOf(updated);
+
+        if (added || !current.isEmpty()) {
+            log.info("Channel pool [{}] now has {} backends: {}", target, updated.size(),
+                    updated.stream().map(Backend::address).toList());
+        }
+        if (!current.isEmpty()) {
+            List<Backend> removed = List.copyOf(current.values());
+            removed.forEach(Backend::shutdown);
+            DRAINER.execute(() -> removed.forEach(b -> b.awaitTermination(shutdownGracePeriod)));
+        }
+    }
+
+    public List<String> getBackends() {
+        return backends.stream().map(Backend::address).toList();
+    }
+
+    /**
+     * Best state across all sub-channels, e.g. READY if any replica is.
+     */
+    public ConnectivityState getState() {
+        ConnectivityState best = ConnectivityState.SHUTDOWN;
+        for (Backend backend : backends) {
+            for (int i = 0; i < subChannels; i++) {
+                ConnectivityState state = backend.subChannel(i).getState(false);
+                if (rank(state) > rank(best)) {
+                    best = state;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Close every replica, waiting up to the grace period for open calls.
+     */
+    public void shutdown() {
+        List<Backend> closing;
+        synchronized (this) {
+            closing = backends;
+            backends = List.of();
+            closing.forEach(Backend::shutdown);
+        }
+        closing.forEach(b -> b.awaitTermination(shutdownGracePeriod));
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        List<Backend> snapshot = backends;
+        if (snapshot.isEmpty()) {
+            return new FailedCall<>(Status.UNAVAILABLE.withDescription("No backends for " + target));
+        }
+
+        Backend backend = pick(snapshot);
+        int subChannel = backend.pickSubChannel();
+        ClientCall<ReqT, RespT> call = backend.subChannel(subChannel).newCall(method, callOptions);
+        return new TrackedCall<>(call, backend, subChannel, method.getType() == MethodDescriptor.MethodType.UNARY);
+    }
+
+    @Override
+    public String authority() {
+        return target;
+    }
+
+    private Backend pick(List<Backend> snapshot) {
+        int n = snapshot.size();
+        int start = (int) Math.floorMod(next.getAndIncrement(), (long) n);
+        if (policy == BalancingPolicy.ROUND_ROBIN || n == 1) {
+            return snapshot.get(start);
+        }
+
+        // Scan from a rotating offset so equally loaded replicas share new calls
+        Backend best = snapshot.get(start);
+        for (int i = 1; i < n; i++) {
+            Backend candidate = snapshot.get((start + i) % n);
+            if (candidate.inFlight() < best.inFlight()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static int rank(ConnectivityState state) {
+        return switch (state) {
+            case READY -> 4;
+            case CONNECTING -> 3;
+            case IDLE -> 2;
+            case TRANSIENT_FAILURE -> 1;
+            case SHUTDOWN -> 0;
+        };
+    }
+
+    /**
+     * Counts the call against its replica from start until close.
+     */
+    private static final class TrackedCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final Backend backend;
+        private final int subChannel;
+        private final boolean unary;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        TrackedCall(ClientCall<ReqT, RespT> delegate, Backend backend, int subChannel, boolean unary) {
+            super(delegate);
+            this.backend = backend;
+            this.subChannel = subChannel;
+            this.unary = unary;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            long startedAt = System.nanoTime();
+            backend.callStarted(subChannel);
+            try {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        finish(startedAt);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            } catch (RuntimeException e) {
+                finish(startedAt);
+                throw e;
+            }
+        }
+
+        private void finish(long startedAt) {
+            if (finished.compareAndSet(false, true)) {
+                backend.callFinished(subChannel);
+                if (unary) {
+                    backend.recordLatency(System.nanoTime() - startedAt);
+                }
+            }
+        }
+    }
+
+    private static final class FailedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final Status status;
+
+        FailedCall(Status status) {
+            this.status = status;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(status, new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+        }
+    }
+}
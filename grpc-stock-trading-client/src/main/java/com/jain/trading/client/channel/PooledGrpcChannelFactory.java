@@ -0,0 +1,193 @@
+package com.jain.trading.client.channel;
+
+import io.grpc.Channel;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelFactory;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+import net.devh.boot.grpc.client.config.NegotiationType;
+import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the starter's channel factory when
+ * {@code trading.grpc.pool.enabled=true}, so every {@code @GrpcClient}
+ * stub is backed by a {@link PooledChannel}.
+ * <p>
+ * Address, negotiation type and keepalive still come from
+ * {@code grpc.client.<name>.*}, and every {@link GrpcChannelConfigurer}
+ * bean is applied to each sub-channel. A {@code static://host1:9090,host2:9090}
+ * address is a fixed replica list; {@code dns:///host:9090} balances over
+ * every A/AAAA record of the host, re-resolved every
+ * {@code refresh-seconds} so scaled replicas join and leave the pool.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trading.grpc.pool.enabled", havingValue = "true")
+public class PooledGrpcChannelFactory implements GrpcChannelFactory {
+
+    private final GrpcChannelsProperties properties;
+    private final GlobalClientInterceptorRegistry interceptorRegistry;
+    private final List<GrpcChannelConfigurer> channelConfigurers;
+    private final MeterRegistry meterRegistry;
+    private final int subChannels;
+    private final BalancingPolicy policy;
+    private final long idleTimeoutSeconds;
+    private final long refreshSeconds;
+
+    private final Map<String, PooledChannel> channels = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService resolver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "grpc-pool-resolver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PooledGrpcChannelFactory(GrpcChannelsProperties properties,
+                                    GlobalClientInterceptorRegistry interceptorRegistry,
+                                    List<GrpcChannelConfigurer> channelConfigurers,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${trading.grpc.pool.sub-channels:2}") int subChannels,
+                                    @Value("${trading.grpc.pool.policy:LEAST_OUTSTANDING}") BalancingPolicy policy,
+                                    @Value("${trading.grpc.pool.idle-timeout-seconds:300}") long idleTimeoutSeconds,
+                                    @Value("${trading.grpc.pool.refresh-seconds:30}") long refreshSeconds) {
+        this.properties = properties;
+        this.interceptorRegistry = interceptorRegistry;
+        this.channelConfigurers = channelConfigurers;
+        this.meterRegistry = meterRegistry;
+        this.subChannels = subChannels;
+        this.policy = policy;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    @Override
+    public Channel createChannel(String name, List<ClientInterceptor> customInterceptors, boolean sortInterceptors) {
+        Channel channel = channels.computeIfAbsent(name, this::newPool);
+
+        // Same interceptor order as the starter's own factories
+        List<ClientInterceptor> interceptors = new ArrayList<>(interceptorRegistry.getClientInterceptors());
+        interceptors.addAll(customInterceptors);
+        if (sortInterceptors) {
+            interceptorRegistry.sortInterceptors(interceptors);
+        }
+        return ClientInterceptors.interceptForward(channel, interceptors);
+    }
+
+    @Override
+    public Map<String, ConnectivityState> getConnectivityState() {
+        Map<String, ConnectivityState> states = new LinkedHashMap<>();
+        channels.forEach((name, pool) -> states.put(name, pool.getState()));
+        return states;
+    }
+
+    @Override
+    public void close() {
+        resolver.shutdownNow();
+        channels.values().forEach(PooledChannel::shutdown);
+        channels.clear();
+    }
+
+    private PooledChannel newPool(String name) {
+        GrpcChannelProperties channelProperties = properties.getChannel(name);
+        URI address = channelProperties.getAddress() != null ? channelProperties.getAddress() : URI.create("dns:///" + name);
+
+        PooledChannel pool = new PooledChannel(name, policy, subChannels, channelProperties.getShutdownGracePeriod(),
+                backend -> newSubChannel(name, backend, channelProperties), meterRegistry);
+        try {
+            pool.setBackends(resolve(address));
+        } catch (IllegalStateException e) {
+            // Calls fail with UNAVAILABLE until the next refresh resolves the name
+            log.warn("Could not resolve {} for [{}]: {}", address, name, e.getMessage());
+        }
+        log.info("Channel pool [{}] using {} with {} sub-channels per backend", name, policy, subChannels);
+
+        if ("dns".equals(address.getScheme())) {
+            resolver.scheduleWithFixedDelay(() -> refresh(pool, address), refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+        return pool;
+    }
+
+    private void refresh(PooledChannel pool, URI address) {
+        try {
+            List<String> backends = resolve(address);
+            if (!backends.isEmpty() && !backends.equals(pool.getBackends())) {
+                pool.setBackends(backends);
+            }
+        } catch (RuntimeException e) {
+            // Keep the current replicas until the name resolves again
+            log.warn("Could not re-resolve {}: {}", address, e.getMessage());
+        }
+    }
+
+    private ManagedChannel newSubChannel(String name, String backend, GrpcChannelProperties channelProperties) {
+        int colon = backend.lastIndexOf(':');
+        ManagedChannelBuilder<?> builder = ManagedChannelBuilder
+                .forAddress(backend.substring(0, colon), Integer.parseInt(backend.substring(colon + 1)))
+                .idleTimeout(idleTimeoutSeconds, TimeUnit.SECONDS);
+
+        if (channelProperties.getNegotiationType() == NegotiationType.TLS) {
+            builder.useTransportSecurity();
+        } else {
+            builder.usePlaintext();
+        }
+        if (channelProperties.isEnableKeepAlive()) {
+            builder.keepAliveTime(channelProperties.getKeepAliveTime().toNanos(), TimeUnit.NANOSECONDS)
+                    .keepAliveTimeout(channelProperties.getKeepAliveTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                    .keepAliveWithoutCalls(channelProperties.isKeepAliveWithoutCalls());
+        }
+        if (channelProperties.getMaxInboundMessageSize() != null) {
+            builder.maxInboundMessageSize((int) channelProperties.getMaxInboundMessageSize().toBytes());
+        }
+        // e.g. the call policy's service config, as the starter applies them
+        channelConfigurers.forEach(configurer -> configurer.accept(builder, name));
+        return builder.build();
+    }
+
+    /**
+     * {@code host:port} entries for a {@code static://} or {@code dns:///} address.
+     */
+    private static List<String> resolve(URI address) {
+        String scheme = address.getScheme();
+        if ("static".equals(scheme)) {
+            return Arrays.stream(address.getAuthority().split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+        if ("dns".equals(scheme)) {
+            String hostPort = address.getPath().substring(1);
+            int colon = hostPort.lastIndexOf(':');
+            String host = colon > 0 ? hostPort.substring(0, colon) : hostPort;
+            String port = colon > 0 ? hostPort.substring(colon + 1) : "443";
+            try {
+                return Arrays.stream(InetAddress.getAllByName(host))
+                        .map(a -> a.getHostAddress() + ":" + port)
+                        .sorted()
+                        .toList();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException("Unknown host " + host, e);
+            }
+        }
+        throw new IllegalArgumentException("Channel pool supports static:// and dns:/// addresses, got " + address);
+    }
+}
@@ -0,0 +1,22 @@
+package com.jain.trading.client.config;
+
+import com.jain.trading.client.model.Stock;
+import com.jain.trading.client.service.StockGraphQLService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Batches every {@link Stock} lookup in one GraphQL operation into a single
+ * {@code GetStockPrices} call. Resolvers request stocks through the
+ * {@code DataLoader<String, Stock>} instead of calling the service directly.
+ */
+@Configuration
+public class StockDataLoaderConfig {
+
+    public StockDataLoaderConfig(BatchLoaderRegistry registry, StockGraphQLService stockService) {
+        // Unknown symbols are simply absent from the map and load as null
+        registry.forTypePair(String.class, Stock.class)
+                .registerMappedBatchLoader((symbols, env) -> Mono.fromFuture(() -> stockService.getStocks(symbols)));
+    }
+}
@@ -2,6 +2,7 @@ package com.jain.trading.client.controller;
 
 import com.jain.trading.client.model.Order;
 import com.jain.trading.client.model.PlaceOrderInput;
+import com.jain.trading.client.model.PlaceOrderResult;
 import com.jain.trading.client.service.StockGraphQLService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +10,9 @@ import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Controller
 @RequiredArgsConstructor
@@ -17,7 +21,7 @@ public class StockMutationResolver {
     private final StockGraphQLService stockService;
 
     @MutationMapping
-    public Order placeOrder(@Argument PlaceOrderInput input) {
+    public CompletableFuture<Order> placeOrder(@Argument PlaceOrderInput input) {
 
         if (input == null) {
             log.warn("Invalid placeOrder input: null");
@@ -32,4 +36,10 @@ public class StockMutationResolver {
         log.info("GraphQL mutation: placeOrder(orderId={})", input.getOrderId());
         return stockService.placeOrder(input);
     }
+
+    @MutationMapping
+    public CompletableFuture<List<PlaceOrderResult>> placeOrders(@Argument List<PlaceOrderInput> input) {
+        log.info("GraphQL mutation: placeOrders(count={})", input.size());
+        return stockService.placeOrders(input);
+    }
 }
@@ -1,15 +1,20 @@
 package com.jain.trading.client.controller;
 
+import com.jain.trading.client.exception.StockNotFoundException;
 import com.jain.trading.client.model.Order;
 import com.jain.trading.client.model.Portfolio;
 import com.jain.trading.client.model.Stock;
 import com.jain.trading.client.service.StockGraphQLService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Controller
 @RequiredArgsConstructor
@@ -18,18 +23,37 @@ public class StockQueryResolver {
     private final StockGraphQLService stockService;
 
     @QueryMapping
-    public Stock getStock(@Argument String symbol) {
+    public CompletableFuture<Stock> getStock(@Argument String symbol, DataLoader<String, Stock> stockLoader) {
         if (symbol == null || symbol.trim().isEmpty()) {
             log.warn("Invalid stock symbol received: [{}]", symbol);
             throw new IllegalArgumentException("Stock symbol must not be blank");
         }
 
         log.info("GraphQL query: getStock(symbol={})", symbol);
-        return stockService.getStock(symbol);
+        return stockLoader.load(symbol).thenApply(stock -> {
+            if (stock == null) {
+                throw new StockNotFoundException("Stock Symbol not found: " + symbol);
+            }
+            return stock;
+        });
+    }
+
+    /**
+     * Unknown symbols resolve to null entries.
+     */
+    @QueryMapping
+    public CompletableFuture<List<Stock>> stocks(@Argument List<String> symbols, DataLoader<String, Stock> stockLoader) {
+        if (symbols.stream().anyMatch(s -> s.trim().isEmpty())) {
+            log.warn("Invalid stock symbols received: {}", symbols);
+            throw new IllegalArgumentException("Stock symbols must not be blank");
+        }
+
+        log.info("GraphQL query: stocks(count={})", symbols.size());
+        return stockLoader.loadMany(symbols);
     }
 
     @QueryMapping
-    public Order getOrder(@Argument String orderId) {
+    public CompletableFuture<Order> getOrder(@Argument String orderId) {
         if (orderId == null || orderId.trim().isEmpty()) {
             log.warn("Invalid orderId received: [{}]", orderId);
             throw new IllegalArgumentException("OrderId must not be blank");
@@ -40,8 +64,8 @@ public class StockQueryResolver {
     }
 
     @QueryMapping
-    public Portfolio getPortfolio() {
-        log.info("GraphQL query: getPortfolio");
-        return stockService.getPortfolio();
+    public CompletableFuture<Portfolio> getPortfolio(@Argument String accountId) {
+        log.info("GraphQL query: getPortfolio(accountId={})", accountId);
+        return stockService.getPortfolio(accountId);
     }
 }
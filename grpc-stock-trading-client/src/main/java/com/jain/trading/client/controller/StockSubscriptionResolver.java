@@ -0,0 +1,45 @@
+package com.jain.trading.client.controller;
+
+import com.jain.trading.client.model.Order;
+import com.jain.trading.client.model.Stock;
+import com.jain.trading.client.service.PriceStreamMultiplexer;
+import com.jain.trading.client.service.StockGraphQLService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class StockSubscriptionResolver {
+
+    private final PriceStreamMultiplexer priceStreamMultiplexer;
+    private final StockGraphQLService stockGraphQLService;
+
+    @SubscriptionMapping
+    public Flux<Stock> priceUpdates(@Argument List<String> symbols) {
+        if (symbols.isEmpty() || symbols.stream().anyMatch(s -> s.trim().isEmpty())) {
+            log.warn("Invalid subscription symbols received: {}", symbols);
+            throw new IllegalArgumentException("Stock symbols must not be blank");
+        }
+
+        log.info("GraphQL subscription: priceUpdates(symbols={})", symbols);
+        return priceStreamMultiplexer.subscribe(symbols);
+    }
+
+    @SubscriptionMapping
+    public Flux<Order> orderUpdates(@Argument String orderId) {
+        if (orderId == null || orderId.isBlank()) {
+            log.warn("Invalid order subscription, empty orderId");
+            throw new IllegalArgumentException("Order ID must not be blank");
+        }
+
+        log.info("GraphQL subscription: orderUpdates(orderId={})", orderId);
+        return stockGraphQLService.watchOrder(orderId);
+    }
+}
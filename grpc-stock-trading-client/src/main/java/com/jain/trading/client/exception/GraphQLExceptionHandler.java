@@ -9,11 +9,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
 @Slf4j
 @Component
 public class GraphQLExceptionHandler extends DataFetcherExceptionResolverAdapter {
     @Override
     protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        // Async resolvers fail with the gRPC/domain exception wrapped by the future
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+
         log.error("GraphQL Error: {}", ex.getMessage(), ex);
 
         if (ex instanceof StockNotFoundException) {
@@ -14,6 +14,11 @@ public class Order {
     private String symbol;
     private String side;       // BUY / SELL
     private Integer quantity;
-    private String status;     // ACCEPTED / EXECUTED / REJECTED
+    private String orderType;  // MARKET / LIMIT
+    private Double limitPrice;
+    private String status;     // ACCEPTED / PARTIALLY_FILLED / EXECUTED / REJECTED
+    private Integer filledQuantity;
+    private Double averageFillPrice;
     private String createdAt;
+    private String accountId;
 }
@@ -14,4 +14,7 @@ public class PlaceOrderInput {
     private String symbol;
     private String side;     // BUY / SELL
     private Integer quantity;
+    private String orderType;  // MARKET / LIMIT, defaults to MARKET
+    private Double limitPrice; // required for LIMIT
+    private String accountId;  // defaults to the server's default account
 }
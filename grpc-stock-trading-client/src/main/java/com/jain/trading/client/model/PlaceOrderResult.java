@@ -0,0 +1,17 @@
+package com.jain.trading.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaceOrderResult {
+    private String orderId;
+    private String status;       // ACCEPTED / REJECTED
+    private String rejectReason; // INVALID_ORDER / UNKNOWN_SYMBOL / DUPLICATE_ORDER_ID / INTERNAL_ERROR
+    private String message;
+}
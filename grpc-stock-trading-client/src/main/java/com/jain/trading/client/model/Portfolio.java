@@ -12,6 +12,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Portfolio {
+    private String accountId;
     private List<PortfolioHolding> holdings;
     private String lastUpdated;
 }
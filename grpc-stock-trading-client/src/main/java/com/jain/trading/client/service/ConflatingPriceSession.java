@@ -0,0 +1,45 @@
+package com.jain.trading.client.service;
+
+import com.jain.trading.client.model.Stock;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Downstream side of one GraphQL price subscription. Emits only as much as
+ * the subscriber has requested and keeps just the latest undelivered price
+ * per symbol, so a slow WebSocket skips stale prices instead of queueing them.
+ */
+final class ConflatingPriceSession {
+
+    private final FluxSink<Stock> sink;
+    private final Map<String, Stock> pending = new LinkedHashMap<>();
+    private long requested;
+
+    ConflatingPriceSession(FluxSink<Stock> sink) {
+        this.sink = sink;
+    }
+
+    synchronized void offer(Stock stock) {
+        pending.put(stock.getSymbol(), stock);
+        drain();
+    }
+
+    synchronized void request(long n) {
+        requested = Operators.addCap(requested, n);
+        drain();
+    }
+
+    private void drain() {
+        Iterator<Stock> it = pending.values().iterator();
+        while (requested > 0 && it.hasNext()) {
+            Stock next = it.next();
+            it.remove();
+            requested--;
+            sink.next(next);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.jain.trading.client.service;
+
+import com.jain.grpc.StockResponse;
+import com.jain.trading.client.model.Stock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans one upstream {@code StreamPrices} stream out to any number of
+ * GraphQL subscriptions.
+ * <p>
+ * Symbols are reference-counted: the first subscription to a symbol adds it
+ * to the upstream stream, the last one to leave removes it. New subscribers
+ * get the last known price right away. Each subscription is conflated on its
+ * own and delivered on a separate scheduler, so a slow browser never holds
+ * up the gRPC callback. If the upstream stream dies it is reopened with
+ * every symbol that still has subscribers.
+ */
+@Slf4j
+@Component
+public class PriceStreamMultiplexer {
+
+    private static final String WATCHLIST = "graphql-subscriptions";
+
+    private final StockClientService stockClientService;
+
+    private final Map<String, Set<ConflatingPriceSession>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Stock> lastPrices = new ConcurrentHashMap<>();
+    private final Set<ConflatingPriceSession> openSessions = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "price-mux-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Guarded by this
+    private PriceWatchlist upstream;
+
+    public PriceStreamMultiplexer(StockClientService stockClientService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${trading.prices.mux.reconnect-seconds:5}") long reconnectSeconds) {
+        this.stockClientService = stockClientService;
+
+        Gauge.builder("price_mux_symbols", sessions, Map::size)
+                .description("Symbols carried by the upstream price stream")
+                .register(meterRegistry);
+        Gauge.builder("price_mux_sessions", openSessions, Set::size)
+                .description("Open GraphQL price subscriptions")
+                .register(meterRegistry);
+
+        reconnector.scheduleWithFixedDelay(this::reconnectIfNeeded, reconnectSeconds, reconnectSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Live prices for the given symbols until the returned Flux is cancelled.
+     */
+    public Flux<Stock> subscribe(Collection<String> symbols) {
+        Set<String> wanted = new LinkedHashSet<>(symbols);
+
+        return Flux.<Stock>create(sink -> {
+                    ConflatingPriceSession session = new ConflatingPriceSession(sink);
+                    sink.onRequest(session::request);
+                    sink.onDispose(() -> release(session, wanted));
+                    acquire(session, wanted);
+                })
+                // Hand-off with a one-element buffer; everything else conflates in the session
+                .publishOn(Schedulers.boundedElastic(), 1);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        reconnector.shutdownNow();
+        if (upstream != null && !upstream.isClosed()) {
+            upstream.close();
+        }
+    }
+
+    private synchronized void acquire(ConflatingPriceSession session, Set<String> symbols) {
+        openSessions.add(session);
+
+        List<String> added = new ArrayList<>();
+        for (String symbol : symbols) {
+            Set<ConflatingPriceSession> watchers =
+                    sessions.computeIfAbsent(symbol, k -> ConcurrentHashMap.newKeySet());
+            if (watchers.isEmpty()) {
+                added.add(symbol);
+            }
+            watchers.add(session);
+
+            Stock last = lastPrices.get(symbol);
+            if (last != null) {
+                session.offer(last);
+            }
+        }
+
+        if (!added.isEmpty()) {
+            log.debug("Adding {} to upstream price stream", added);
+            addUpstream(added);
+        }
+    }
+
+    private synchronized void release(ConflatingPriceSession session, Set<String> symbols) {
+        openSessions.remove(session);
+
+        List<String> removed = new ArrayList<>();
+        for (String symbol : symbols) {
+            sessions.computeIfPresent(symbol, (k, watchers) -> {
+                watchers.remove(session);
+                return watchers.isEmpty() ? null : watchers;
+            });
+            if (!sessions.containsKey(symbol)) {
+                removed.add(symbol);
+                lastPrices.remove(symbol);
+            }
+        }
+
+        if (!removed.isEmpty() && upstream != null && !upstream.isClosed()) {
+            log.debug("Removing {} from upstream price stream", removed);
+            try {
+                upstream.remove(removed);
+            } catch (IllegalStateException e) {
+                // Stream died in between; the reconnect picks up the current symbols
+            }
+        }
+    }
+
+    private void addUpstream(List<String> symbols) {
+        if (upstream == null || upstream.isClosed()) {
+            openUpstream();
+            return;
+        }
+        try {
+            upstream.add(symbols);
+        } catch (IllegalStateException e) {
+            openUpstream();
+        }
+    }
+
+    private void openUpstream() {
+        Set<String> symbols = new HashSet<>(sessions.keySet());
+        log.info("Opening upstream price stream for {} symbols", symbols.size());
+        upstream = stockClientService.openWatchlist(WATCHLIST, symbols, this::onPrice);
+    }
+
+    private synchronized void reconnectIfNeeded() {
+        if (!sessions.isEmpty() && (upstream == null || upstream.isClosed())) {
+            log.warn("Upstream price stream is down, reconnecting");
+            try {
+                openUpstream();
+            } catch (Exception e) {
+                log.error("Reconnecting upstream price stream failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // gRPC callback thread; must not block
+    private void onPrice(StockResponse response) {
+        Set<ConflatingPriceSession> watchers = sessions.get(response.getStockSymbol());
+        if (watchers == null) {
+            return;
+        }
+
+        Stock stock = Stock.builder()
+                .symbol(response.getStockSymbol())
+                .price(response.getPrice())
+                .timestamp(response.getTimestamp())
+                .build();
+
+        lastPrices.put(stock.getSymbol(), stock);
+        watchers.forEach(session -> session.offer(stock));
+    }
+}
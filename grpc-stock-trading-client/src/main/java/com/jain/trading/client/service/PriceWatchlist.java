@@ -0,0 +1,112 @@
+package com.jain.trading.client.service;
+
+import com.jain.grpc.PriceSubscriptionRequest;
+import com.jain.grpc.PriceUpdateBatch;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.SubscriptionAction;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * One {@code StreamPrices} stream carrying a named set of symbols.
+ * Symbols can be added and removed while the stream is open.
+ */
+@Slf4j
+public class PriceWatchlist implements ClientResponseObserver<PriceSubscriptionRequest, PriceUpdateBatch> {
+
+    private final String name;
+    private final Consumer<StockResponse> listener;
+    private final Consumer<PriceWatchlist> onClose;
+    private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+
+    private ClientCallStreamObserver<PriceSubscriptionRequest> requestStream;
+    private volatile boolean closed;
+
+    PriceWatchlist(String name, Consumer<StockResponse> listener, Consumer<PriceWatchlist> onClose) {
+        this.name = name;
+        this.listener = listener;
+        this.onClose = onClose;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(symbols);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void add(Collection<String> stockSymbols) {
+        symbols.addAll(stockSymbols);
+        send(SubscriptionAction.SUBSCRIBE, stockSymbols);
+    }
+
+    public void remove(Collection<String> stockSymbols) {
+        symbols.removeAll(stockSymbols);
+        send(SubscriptionAction.UNSUBSCRIBE, stockSymbols);
+    }
+
+    /**
+     * Half-close the stream; the server completes it once it has cleaned up.
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            requestStream.onCompleted();
+            onClose.accept(this);
+        }
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<PriceSubscriptionRequest> requestStream) {
+        this.requestStream = requestStream;
+    }
+
+    @Override
+    public void onNext(PriceUpdateBatch batch) {
+        batch.getUpdatesList().forEach(listener);
+
+        if (batch.getUnknownSymbolsCount() > 0) {
+            log.warn("Watchlist [{}] dropped unknown symbols: {}", name, batch.getUnknownSymbolsList());
+            batch.getUnknownSymbolsList().forEach(symbols::remove);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.error("Watchlist [{}] stream error: {}", name, t.getMessage());
+        closed = true;
+        onClose.accept(this);
+    }
+
+    @Override
+    public void onCompleted() {
+        log.info("Watchlist [{}] stream completed by server", name);
+        closed = true;
+        onClose.accept(this);
+    }
+
+    // Request streams are not thread-safe
+    private synchronized void send(SubscriptionAction action, Collection<String> stockSymbols) {
+        if (closed) {
+            throw new IllegalStateException("Watchlist " + name + " is closed");
+        }
+        requestStream.onNext(
+                PriceSubscriptionRequest.newBuilder()
+                        .setAction(action)
+                        .addAllStockSymbols(stockSymbols)
+                        .build()
+        );
+    }
+}
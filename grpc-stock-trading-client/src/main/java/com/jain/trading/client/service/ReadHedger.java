@@ -0,0 +1,274 @@
+package com.jain.trading.client.service;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent reads.
+ * <p>
+ * If a call has not answered after the method's recent
+ * {@code trading.grpc.hedging.percentile} latency, a second identical call
+ * is sent and whichever answers first wins; the other is cancelled, which
+ * also cancels its server-side query. The delay tracks a sliding window of
+ * latencies as the caller saw them, from the first attempt to the result
+ * (failures and hedge wins included), clamped to
+ * {@code [min-delay-ms, max-delay-ms]}, so only the slowest few percent of
+ * calls are hedged. A budget of
+ * {@code max-hedge-ratio} hedges per call keeps a slow server from having
+ * its load doubled.
+ * <p>
+ * Exported: {@code grpc_client_hedges_total{method}},
+ * {@code grpc_client_hedge_wins_total{method}} (hedge answered first),
+ * {@code grpc_client_hedges_throttled_total{method}} and
+ * {@code grpc_client_hedge_delay_ms{method}}.
+ */
+@Slf4j
+@Component
+public class ReadHedger {
+
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 64;
+    private static final long BUDGET_UNIT = 1_000_000;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long budgetPerCall;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    // Budget in millionths of a hedge; each call earns max-hedge-ratio of one
+    private final AtomicLong budget = new AtomicLong(10 * BUDGET_UNIT);
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "grpc-hedge-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReadHedger(MeterRegistry meterRegistry,
+                      @Value("${trading.grpc.hedging.enabled:true}") boolean enabled,
+                      @Value("${trading.grpc.hedging.percentile:0.95}") double percentile,
+                      @Value("${trading.grpc.hedging.min-delay-ms:5}") long minDelayMillis,
+                      @Value("${trading.grpc.hedging.max-delay-ms:200}") long maxDelayMillis,
+                      @Value("${trading.grpc.hedging.max-hedge-ratio:0.1}") double maxHedgeRatio) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.budgetPerCall = (long) (maxHedgeRatio * BUDGET_UNIT);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Run one read, hedging it if it is slow. {@code attempt} must start a
+     * new call each time it is invoked, all sharing one deadline. Cancelling
+     * the returned future cancels every attempt.
+     */
+    public <T> CompletableFuture<T> call(String method, Supplier<ListenableFuture<T>> attempt) {
+        MethodStats stats = methods.computeIfAbsent(method, MethodStats::new);
+        HedgedCall<T> call = new HedgedCall<>(stats, attempt);
+        call.start(enabled);
+        return call.result;
+    }
+
+    private boolean takeHedgeBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    private void earnHedgeBudget() {
+        budget.getAndUpdate(current -> Math.min(current + budgetPerCall, 10 * BUDGET_UNIT));
+    }
+
+    private final class HedgedCall<T> {
+
+        private final MethodStats stats;
+        private final Supplier<ListenableFuture<T>> attempt;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicReference<ListenableFuture<T>> primary = new AtomicReference<>();
+        private final AtomicReference<ListenableFuture<T>> hedge = new AtomicReference<>();
+        private volatile ScheduledFuture<?> hedgeTimer;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                cancelAttempts();
+                return cancelled;
+            }
+        };
+
+        HedgedCall(MethodStats stats, Supplier<ListenableFuture<T>> attempt) {
+            this.stats = stats;
+            this.attempt = attempt;
+        }
+
+        void start(boolean hedging) {
+            earnHedgeBudget();
+            long startedAt = System.nanoTime();
+            // One sample per call; a call cancelled by its caller says nothing about latency
+            result.whenComplete((value, t) -> {
+                if (!(t instanceof CancellationException)) {
+                    stats.record(System.nanoTime() - startedAt);
+                }
+            });
+            ListenableFuture<T> first = attempt.get();
+            primary.set(first);
+            listen(first, false);
+
+            if (hedging && !result.isDone()) {
+                hedgeTimer = timer.schedule(this::sendHedge, stats.delayNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void sendHedge() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!takeHedgeBudget()) {
+                stats.throttled.increment();
+                return;
+            }
+            pending.incrementAndGet();
+            stats.hedges.increment();
+
+            ListenableFuture<T> second = attempt.get();
+            hedge.set(second);
+            listen(second, true);
+            if (result.isDone()) {
+                second.cancel(false);
+            }
+        }
+
+        private void listen(ListenableFuture<T> call, boolean isHedge) {
+            Futures.addCallback(call, new FutureCallback<>() {
+                @Override
+                public void onSuccess(T value) {
+                    if (result.complete(value)) {
+                        if (isHedge) {
+                            stats.wins.increment();
+                        }
+                        cancelAttempts();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    // A failed attempt only fails the read once no other attempt can answer
+                    if (pending.decrementAndGet() == 0 && result.completeExceptionally(t)) {
+                        cancelAttempts();
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        private void cancelAttempts() {
+            ScheduledFuture<?> scheduled = hedgeTimer;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            cancel(primary.get());
+            cancel(hedge.get());
+        }
+
+        private void cancel(ListenableFuture<T> call) {
+            if (call != null && !call.isDone()) {
+                call.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Latency window and hedge meters for one method.
+     */
+    private final class MethodStats {
+
+        private final long[] samples = new long[WINDOW];
+        private final AtomicLong recorded = new AtomicLong();
+        private volatile long delayNanos = maxDelayNanos;
+
+        private final Counter hedges;
+        private final Counter wins;
+        private final Counter throttled;
+
+        MethodStats(String method) {
+            this.hedges = Counter.builder("grpc_client_hedges_total")
+                    .description("Hedge requests sent")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            this.wins = Counter.builder("grpc_client_hedge_wins_total")
+                    .description("Hedge requests that answered before the original")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            this.throttled = Counter.builder("grpc_client_hedges_throttled_total")
+                    .description("Hedges skipped because the hedge budget was spent")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            Gauge.builder("grpc_client_hedge_delay_ms", this, s -> s.delayNanos / 1_000_000.0)
+                    .description("Current wait before a read is hedged")
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        /**
+         * Racing writers may overwrite each other's slot; for a percentile
+         * estimate over 1024 samples that is harmless.
+         */
+        void record(long nanos) {
+            long n = recorded.getAndIncrement();
+            samples[(int) (n % WINDOW)] = nanos;
+            if (n + 1 >= MIN_SAMPLES && (n + 1) % (WINDOW / 16) == 0) {
+                recompute((int) Math.min(n + 1, WINDOW));
+            }
+        }
+
+        private void recompute(int count) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            long value = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+        }
+    }
+}
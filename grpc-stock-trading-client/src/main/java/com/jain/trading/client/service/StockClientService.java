@@ -1,41 +1,140 @@
 package com.jain.trading.client.service;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.jain.grpc.*;
+import com.jain.trading.client.channel.GrpcCallPolicy;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
 import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 import org.springframework.stereotype.Service;
-
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class StockClientService {
 
     @GrpcClient("stockService")
-    private StockTradingServiceGrpc.StockTradingServiceBlockingStub blockingStub;
+    private StockTradingServiceGrpc.StockTradingServiceStub asyncStub;
 
     @GrpcClient("stockService")
-    private StockTradingServiceGrpc.StockTradingServiceStub asyncStub;
+    private StockTradingServiceGrpc.StockTradingServiceFutureStub futureStub;
+
+    private final StockQuoteNearCache nearCache;
+    private final GrpcCallPolicy callPolicy;
+    private final ReadHedger hedger;
 
     // Holds current cancellable context if a subscription is active
     private final AtomicReference<Context.CancellableContext> activeSubscription = new AtomicReference<>();
 
+    // Open multi-symbol streams, keyed by watchlist name
+    private final Map<String, PriceWatchlist> watchlists = new ConcurrentHashMap<>();
+
+    public StockClientService(StockQuoteNearCache nearCache, GrpcCallPolicy callPolicy, ReadHedger hedger) {
+        this.nearCache = nearCache;
+        this.callPolicy = callPolicy;
+        this.hedger = hedger;
+    }
+
     /**
      * Unary call: fetch current price once.
+     * Hot symbols are answered from the near cache while fresh.
      */
     public StockResponse getStockPrice(String stockSymbol) {
+        return await(getStockPriceAsync(stockSymbol));
+    }
+
+    /**
+     * Non-blocking {@link #getStockPrice}; hedged if the server is slow.
+     */
+    public CompletableFuture<StockResponse> getStockPriceAsync(String stockSymbol) {
+        StockResponse cached = nearCache.get(stockSymbol);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
         StockRequest request = StockRequest.newBuilder()
                 .setStockSymbol(stockSymbol)
                 .build();
 
         log.info("Requesting price for stock: {}", stockSymbol);
 
-        StockResponse response = blockingStub.getStockPrice(request);
+        long requestedAt = System.nanoTime();
+        Deadline deadline = callPolicy.deadline(GrpcCallPolicy.GET_STOCK_PRICE);
+        return hedger.call(GrpcCallPolicy.GET_STOCK_PRICE, () -> futureStub.withDeadline(deadline).getStockPrice(request))
+                .thenApply(response -> {
+                    nearCache.refresh(response, requestedAt);
+                    log.info("Received price for {}: {}", response.getStockSymbol(), response.getPrice());
+                    return response;
+                });
+    }
+
+    /**
+     * Unary call: fetch current prices for many symbols at once.
+     * Fresh near-cache quotes are used as-is; only the rest go to the server.
+     */
+    public StockPricesResponse getStockPrices(Collection<String> stockSymbols) {
+        return await(getStockPricesAsync(stockSymbols));
+    }
+
+    /**
+     * Non-blocking {@link #getStockPrices}; completes on the gRPC callback thread.
+     */
+    public CompletableFuture<StockPricesResponse> getStockPricesAsync(Collection<String> stockSymbols) {
+        StockPricesResponse.Builder merged = StockPricesResponse.newBuilder();
+        List<String> remaining = new ArrayList<>();
+        for (String symbol : stockSymbols) {
+            StockResponse cached = nearCache.get(symbol);
+            if (cached != null) {
+                merged.addStocks(cached);
+            } else {
+                remaining.add(symbol);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return CompletableFuture.completedFuture(merged.build());
+        }
+
+        log.info("Requesting prices for {} stocks ({} from near cache)", remaining.size(), merged.getStocksCount());
 
-        log.info("Received price for {}: {}", response.getStockSymbol(), response.getPrice());
-        return response;
+        StockPricesRequest request = StockPricesRequest.newBuilder()
+                .addAllStockSymbols(remaining)
+                .build();
+
+        long requestedAt = System.nanoTime();
+        Deadline deadline = callPolicy.deadline(GrpcCallPolicy.GET_STOCK_PRICES);
+        return hedger.call(GrpcCallPolicy.GET_STOCK_PRICES, () -> futureStub.withDeadline(deadline).getStockPrices(request))
+                .thenApply(response -> {
+                    response.getStocksList().forEach(quote -> nearCache.refresh(quote, requestedAt));
+                    log.info("Received {} prices, {} unknown symbols", response.getStocksCount(), response.getUnknownSymbolsCount());
+                    return merged.mergeFrom(response).build();
+                });
     }
 
     /**
@@ -93,47 +192,252 @@ public class StockClientService {
         }
     }
 
+    /**
+     * Bidirectional streaming call: one stream for a whole set of symbols.
+     * Any number of watchlists can be open at once.
+     */
+    public PriceWatchlist openWatchlist(String name,
+                                        Collection<String> stockSymbols,
+                                        Consumer<StockResponse> listener) {
+        PriceWatchlist watchlist = new PriceWatchlist(name, listener, closed -> watchlists.remove(name, closed));
+
+        if (watchlists.putIfAbsent(name, watchlist) != null) {
+            throw new IllegalStateException("Watchlist already open: " + name);
+        }
+
+        log.info("Opening watchlist [{}] with {} symbols", name, stockSymbols.size());
+        asyncStub.streamPrices(watchlist);
+
+        if (!stockSymbols.isEmpty()) {
+            watchlist.add(stockSymbols);
+        }
+        return watchlist;
+    }
+
+    public PriceWatchlist getWatchlist(String name) {
+        return watchlists.get(name);
+    }
+
+    public void closeWatchlist(String name) {
+        PriceWatchlist watchlist = watchlists.get(name);
+        if (watchlist != null) {
+            log.info("Closing watchlist [{}]", name);
+            watchlist.close();
+        } else {
+            log.warn("No watchlist named [{}] to close.", name);
+        }
+    }
+
+    @PreDestroy
+    public void closeAllWatchlists() {
+        watchlists.values().forEach(PriceWatchlist::close);
+    }
+
     public PlaceOrderResponse placeOrder(PlaceOrderRequest request) {
-        log.info("Placing order via gRPC: {}", request.getOrderId());
+        return await(placeOrderAsync(request));
+    }
 
-        PlaceOrderResponse response = blockingStub.placeOrder(request);
+    public PlaceOrdersResponse placeOrders(Collection<PlaceOrderRequest> requests) {
+        return await(placeOrdersAsync(requests));
+    }
+
+    /**
+     * Never hedged. The channel retries {@code UNAVAILABLE}, so the first
+     * attempt may have stored the order before the connection failed; a
+     * retry then gets {@code ALREADY_EXISTS}. In that case the stored order
+     * is read back and, if it is this order, returned as the result.
+     */
+    public CompletableFuture<PlaceOrderResponse> placeOrderAsync(PlaceOrderRequest request) {
+        log.info("Placing order via gRPC: {}", request.getOrderId());
 
-        log.info(
-                "Received PlaceOrder response for {} with status {}",
-                response.getOrderId(),
-                response.getStatus()
-        );
+        AttemptCounter attempts = new AttemptCounter();
+        return toCompletableFuture(futureStub.withInterceptors(attempts).placeOrder(request))
+                .exceptionallyCompose(ex -> {
+                    Status status = Status.fromThrowable(ex);
+                    if (status.getCode() != Status.Code.ALREADY_EXISTS || attempts.count() < 2) {
+                        return CompletableFuture.failedFuture(ex);
+                    }
+                    log.warn("PlaceOrder {} was retried and now exists; checking the stored order", request.getOrderId());
+                    return getOrderAsync(request.getOrderId()).thenApply(stored -> {
+                        if (!isSameOrder(request, stored)) {
+                            throw status.asRuntimeException();
+                        }
+                        return PlaceOrderResponse.newBuilder()
+                                .setOrderId(stored.getOrderId())
+                                .setStatus(stored.getStatus())
+                                .setMessage("Order accepted for processing")
+                                .build();
+                    });
+                })
+                .whenComplete((response, ex) -> {
+                    if (response != null) {
+                        log.info("Received PlaceOrder response for {} with status {}", response.getOrderId(), response.getStatus());
+                    }
+                });
+    }
 
-        return response;
+    public CompletableFuture<PlaceOrdersResponse> placeOrdersAsync(Collection<PlaceOrderRequest> requests) {
+        log.info("Placing basket of {} orders via gRPC", requests.size());
+        return toCompletableFuture(futureStub.placeOrders(
+                PlaceOrdersRequest.newBuilder()
+                        .addAllOrders(requests)
+                        .build()
+        )).whenComplete((response, ex) -> {
+            if (response != null) {
+                log.info("Received PlaceOrders response with {} results", response.getResultsCount());
+            }
+        });
     }
 
     public GetOrderResponse getOrder(String orderId) {
+        return await(getOrderAsync(orderId));
+    }
+
+    public CompletableFuture<GetOrderResponse> getOrderAsync(String orderId) {
         GetOrderRequest request = GetOrderRequest.newBuilder()
                 .setOrderId(orderId)
                 .build();
 
         log.info("Requesting order details for orderId: {}", orderId);
 
-        GetOrderResponse response = blockingStub.getOrder(request);
+        Deadline deadline = callPolicy.deadline(GrpcCallPolicy.GET_ORDER);
+        return hedger.call(GrpcCallPolicy.GET_ORDER, () -> futureStub.withDeadline(deadline).getOrder(request))
+                .whenComplete((response, ex) -> {
+                    if (response != null) {
+                        log.info("Received order {} with status {}", response.getOrderId(), response.getStatus());
+                    }
+                });
+    }
+
+    /**
+     * Server streaming call: the order's current state, then every change
+     * until it is EXECUTED or REJECTED. Cancelling the Flux cancels the call.
+     */
+    public Flux<GetOrderResponse> watchOrder(String orderId) {
+        WatchOrderRequest request = WatchOrderRequest.newBuilder()
+                .setOrderId(orderId)
+                .build();
+
+        return Flux.create(sink -> {
+            log.info("Watching order {}", orderId);
+
+            asyncStub.watchOrder(request, new ClientResponseObserver<WatchOrderRequest, GetOrderResponse>() {
+                @Override
+                public void beforeStart(ClientCallStreamObserver<WatchOrderRequest> call) {
+                    sink.onDispose(() -> call.cancel("Watch cancelled", null));
+                }
+
+                @Override
+                public void onNext(GetOrderResponse response) {
+                    log.debug("Order {} is now {}", response.getOrderId(), response.getStatus());
+                    sink.next(response);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sink.error(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                    sink.complete();
+                }
+            });
+        });
+    }
+
+    /**
+     * Holdings of one account; {@code null} means the server's default account.
+     */
+    public GetPortfolioResponse getPortfolio(String accountId) {
+        return await(getPortfolioAsync(accountId));
+    }
+
+    public CompletableFuture<GetPortfolioResponse> getPortfolioAsync(String accountId) {
+        GetPortfolioRequest.Builder builder = GetPortfolioRequest.newBuilder();
+        if (accountId != null) {
+            builder.setAccountId(accountId);
+        }
+        GetPortfolioRequest request = builder.build();
 
-        log.info(
-                "Received order {} with status {}",
-                response.getOrderId(),
-                response.getStatus()
-        );
+        log.info("Requesting portfolio of account [{}] via gRPC", request.getAccountId());
 
-        return response;
+        Deadline deadline = callPolicy.deadline(GrpcCallPolicy.GET_PORTFOLIO);
+        return hedger.call(GrpcCallPolicy.GET_PORTFOLIO, () -> futureStub.withDeadline(deadline).getPortfolio(request))
+                .whenComplete((response, ex) -> {
+                    if (response != null) {
+                        log.info("Received portfolio with {} holdings", response.getHoldingsCount());
+                    }
+                });
     }
 
-    public GetPortfolioResponse getPortfolio() {
-        GetPortfolioRequest request = GetPortfolioRequest.newBuilder().build();
+    private static boolean isSameOrder(PlaceOrderRequest request, GetOrderResponse stored) {
+        return request.getStockSymbol().equals(stored.getStockSymbol())
+                && request.getSide() == stored.getSide()
+                && request.getQuantity() == stored.getQuantity()
+                && request.getOrderType() == stored.getOrderType()
+                && request.getLimitPrice() == stored.getLimitPrice()
+                && (request.getAccountId().isEmpty() || request.getAccountId().equals(stored.getAccountId()));
+    }
+
+    // Blocking variants wait on the async call and rethrow its gRPC exception
+    private static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Counts the attempts of one call; each retry opens a new stream.
+     */
+    private static final class AttemptCounter extends ClientStreamTracer.Factory implements ClientInterceptor {
+
+        private final AtomicInteger attempts = new AtomicInteger();
 
-        log.info("Requesting portfolio via gRPC");
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                   CallOptions callOptions,
+                                                                   Channel next) {
+            return next.newCall(method, callOptions.withStreamTracerFactory(this));
+        }
 
-        GetPortfolioResponse response = blockingStub.getPortfolio(request);
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            attempts.incrementAndGet();
+            return new ClientStreamTracer() {
+            };
+        }
 
-        log.info("Received portfolio with {} holdings", response.getHoldingsCount());
-        return response;
+        int count() {
+            return attempts.get();
+        }
     }
 
+    // Cancelling the returned future cancels the RPC
+    private static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                call.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        Futures.addCallback(call, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
 }
@@ -3,136 +3,232 @@ package com.jain.trading.client.service;
 import com.jain.grpc.*;
 import com.jain.trading.client.exception.OrderNotFoundException;
 import com.jain.trading.client.exception.PortfolioNotFoundException;
-import com.jain.trading.client.exception.StockNotFoundException;
 import com.jain.trading.client.model.*;
-import lombok.RequiredArgsConstructor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * GraphQL-facing wrapper over {@link StockClientService}.
+ * <p>
+ * Every operation returns a {@link CompletableFuture}. With
+ * {@code trading.graphql.async-resolvers=true} it is driven by the gRPC
+ * future stub, so no servlet thread waits on the round trip; otherwise
+ * the blocking stub runs on the calling thread and the future is already
+ * complete.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class StockGraphQLService {
 
     private final StockClientService stockClientService;
+    private final boolean asyncResolvers;
 
-    public Stock getStock(String symbol) {
-        log.debug("Fetching stock [{}] via gRPC", symbol);
-
-        try {
-            StockResponse response = stockClientService.getStockPrice(symbol);
+    public StockGraphQLService(StockClientService stockClientService,
+                               @Value("${trading.graphql.async-resolvers:true}") boolean asyncResolvers) {
+        this.stockClientService = stockClientService;
+        this.asyncResolvers = asyncResolvers;
+    }
 
-            if (response == null || response.getStockSymbol().isEmpty()) {
-                throw new StockNotFoundException("Stock Symbol not found: " + symbol);
-            }
+    /**
+     * Batch lookup behind the {@code Stock} DataLoader.
+     *
+     * @return known stocks keyed by symbol; unknown symbols are absent
+     */
+    public CompletableFuture<Map<String, Stock>> getStocks(Collection<String> symbols) {
+        log.debug("Fetching {} stocks via gRPC", symbols.size());
+
+        return call(() -> stockClientService.getStockPricesAsync(symbols), () -> stockClientService.getStockPrices(symbols))
+                .thenApply(response -> {
+                    Map<String, Stock> stocks = new HashMap<>();
+                    response.getStocksList().forEach(s ->
+                            stocks.put(s.getStockSymbol(),
+                                    Stock.builder()
+                                            .symbol(s.getStockSymbol())
+                                            .price(s.getPrice())
+                                            .timestamp(s.getTimestamp())
+                                            .build()));
+                    return stocks;
+                })
+                .whenComplete((stocks, ex) -> {
+                    if (ex != null) {
+                        log.error("Error fetching stocks {}: {}", symbols, ex.getMessage(), ex);
+                    }
+                });
+    }
 
-            return Stock.builder()
-                    .symbol(response.getStockSymbol())
-                    .price(response.getPrice())
-                    .timestamp(response.getTimestamp())
-                    .build();
+    public CompletableFuture<Order> getOrder(String orderId) {
+        log.debug("Fetching order [{}] via gRPC", orderId);
 
-        } catch (Exception ex) {
-            log.error("Error fetching stock [{}]: {}", symbol, ex.getMessage(), ex);
-            throw ex;
-        }
+        return call(() -> stockClientService.getOrderAsync(orderId), () -> stockClientService.getOrder(orderId))
+                .thenApply(response -> {
+                    if (response == null || response.getOrderId().isBlank()) {
+                        throw new OrderNotFoundException("Order not found: " + orderId);
+                    }
+
+                    return toOrder(response);
+                })
+                .whenComplete((order, ex) -> {
+                    if (ex != null) {
+                        log.error("Error fetching order [{}]: {}", orderId, ex.getMessage(), ex);
+                    }
+                });
     }
 
-    public Order getOrder(String orderId) {
-        log.debug("Fetching order [{}] via gRPC", orderId);
+    /**
+     * Live status of one order, ending once it is EXECUTED or REJECTED.
+     */
+    public Flux<Order> watchOrder(String orderId) {
+        log.debug("Watching order [{}] via gRPC", orderId);
+
+        return stockClientService.watchOrder(orderId)
+                .map(StockGraphQLService::toOrder)
+                .onErrorMap(
+                        ex -> ex instanceof StatusRuntimeException sre && sre.getStatus().getCode() == Status.Code.NOT_FOUND,
+                        ex -> new OrderNotFoundException("Order not found: " + orderId))
+                .doOnError(ex -> log.error("Error watching order [{}]: {}", orderId, ex.getMessage()));
+    }
 
-        try {
-            GetOrderResponse response = stockClientService.getOrder(orderId);
-
-            if (response == null || response.getOrderId().isBlank()) {
-                throw new OrderNotFoundException("Order not found: " + orderId);
-            }
-
-            return Order.builder()
-                    .orderId(response.getOrderId())
-                    .symbol(response.getStockSymbol())
-                    .side(response.getSide().name())
-                    .quantity(response.getQuantity())
-                    .status(response.getStatus().name())
-                    .createdAt(response.getCreatedAt())
-                    .build();
-
-        } catch (Exception ex) {
-            log.error("Error fetching order [{}]: {}", orderId, ex.getMessage(), ex);
-            throw ex;
-        }
+    private static Order toOrder(GetOrderResponse response) {
+        return Order.builder()
+                .orderId(response.getOrderId())
+                .symbol(response.getStockSymbol())
+                .side(response.getSide().name())
+                .quantity(response.getQuantity())
+                .orderType(response.getOrderType().name())
+                .limitPrice(response.getLimitPrice())
+                .status(response.getStatus().name())
+                .filledQuantity(response.getFilledQuantity())
+                .averageFillPrice(response.getAverageFillPrice())
+                .createdAt(response.getCreatedAt())
+                .accountId(response.getAccountId())
+                .build();
     }
 
-    public Order placeOrder(PlaceOrderInput input) {
+    public CompletableFuture<Order> placeOrder(PlaceOrderInput input) {
         log.debug("Placing order [{}] via gRPC", input != null ? input.getOrderId() : null);
 
-        try {
-            validatePlaceOrder(input);
-
-            PlaceOrderRequest grpcRequest =
-                    PlaceOrderRequest.newBuilder()
-                            .setOrderId(input.getOrderId())
-                            .setStockSymbol(input.getSymbol())
-                            .setSide(OrderSide.valueOf(input.getSide()))
-                            .setQuantity(input.getQuantity())
+        validatePlaceOrder(input);
+        PlaceOrderRequest request = toGrpcRequest(input);
+
+        return call(() -> stockClientService.placeOrderAsync(request), () -> stockClientService.placeOrder(request))
+                .thenApply(response -> {
+                    if (response == null || response.getOrderId().isBlank()) {
+                        throw new RuntimeException("Invalid response received from order service");
+                    }
+
+                    return Order.builder()
+                            .orderId(response.getOrderId())
+                            .status(response.getStatus().name())
                             .build();
+                })
+                .whenComplete((order, ex) -> {
+                    if (ex != null) {
+                        log.error("Error placing order [{}]: {}", input.getOrderId(), ex.getMessage(), ex);
+                    }
+                });
+    }
 
-            PlaceOrderResponse response =
-                    stockClientService.placeOrder(grpcRequest);
-
-            if (response == null || response.getOrderId().isBlank()) {
-                throw new RuntimeException("Invalid response received from order service");
-            }
-
-            return Order.builder()
-                    .orderId(response.getOrderId())
-                    .status(response.getStatus().name())
-                    .build();
-
-        } catch (Exception ex) {
-            log.error(
-                    "Error placing order [{}]: {}",
-                    input != null ? input.getOrderId() : null,
-                    ex.getMessage(),
-                    ex
-            );
-            throw ex;
-        }
+    /**
+     * Places the whole basket in one call. Per-order problems come back as
+     * REJECTED results rather than errors, so no client-side validation here.
+     */
+    public CompletableFuture<List<PlaceOrderResult>> placeOrders(List<PlaceOrderInput> inputs) {
+        log.debug("Placing basket of {} orders via gRPC", inputs.size());
+
+        List<PlaceOrderRequest> requests = inputs.stream().map(this::toGrpcRequest).toList();
+
+        return call(() -> stockClientService.placeOrdersAsync(requests), () -> stockClientService.placeOrders(requests))
+                .thenApply(response -> response.getResultsList().stream()
+                        .map(r ->
+                                PlaceOrderResult.builder()
+                                        .orderId(r.getOrderId())
+                                        .status(r.getStatus().name())
+                                        .rejectReason(r.getStatus() == OrderStatus.REJECTED ? r.getRejectReason().name() : null)
+                                        .message(r.getMessage())
+                                        .build()
+                        )
+                        .toList())
+                .whenComplete((results, ex) -> {
+                    if (ex != null) {
+                        log.error("Error placing basket of {} orders: {}", inputs.size(), ex.getMessage(), ex);
+                    }
+                });
     }
 
-    public Portfolio getPortfolio() {
-        log.debug("Fetching portfolio via gRPC");
+    public CompletableFuture<Portfolio> getPortfolio(String accountId) {
+        log.debug("Fetching portfolio of account [{}] via gRPC", accountId);
+
+        return call(() -> stockClientService.getPortfolioAsync(accountId), () -> stockClientService.getPortfolio(accountId))
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new PortfolioNotFoundException("Portfolio not found");
+                    }
+
+                    List<PortfolioHolding> holdings =
+                            response.getHoldingsList().stream()
+                                    .map(h ->
+                                            PortfolioHolding.builder()
+                                                    .symbol(h.getStockSymbol())
+                                                    .quantity(h.getQuantity())
+                                                    .build()
+                                    )
+                                    .toList();
+
+                    return Portfolio.builder()
+                            .accountId(response.getAccountId())
+                            .holdings(holdings)
+                            .lastUpdated(response.getLastUpdated())
+                            .build();
+                })
+                .whenComplete((portfolio, ex) -> {
+                    if (ex != null) {
+                        log.error("Error fetching portfolio of account [{}]: {}", accountId, ex.getMessage(), ex);
+                    }
+                });
+    }
 
+    private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> async, Supplier<T> blocking) {
+        if (asyncResolvers) {
+            return async.get();
+        }
         try {
-            GetPortfolioResponse response = stockClientService.getPortfolio();
-
-            if (response == null) {
-                throw new PortfolioNotFoundException("Portfolio not found");
-            }
-
-            List<PortfolioHolding> holdings =
-                    response.getHoldingsList().stream()
-                            .map(h ->
-                                    PortfolioHolding.builder()
-                                            .symbol(h.getStockSymbol())
-                                            .quantity(h.getQuantity())
-                                            .build()
-                            )
-                            .toList();
-
-            return Portfolio.builder()
-                    .holdings(holdings)
-                    .lastUpdated(response.getLastUpdated())
-                    .build();
-
-        } catch (Exception ex) {
-            log.error("Error fetching portfolio: {}", ex.getMessage(), ex);
-            throw ex;
+            return CompletableFuture.completedFuture(blocking.get());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
         }
     }
 
+    private PlaceOrderRequest toGrpcRequest(PlaceOrderInput input) {
+        PlaceOrderRequest.Builder grpcRequest =
+                PlaceOrderRequest.newBuilder()
+                        .setOrderId(input.getOrderId())
+                        .setStockSymbol(input.getSymbol())
+                        .setSide(OrderSide.valueOf(input.getSide()))
+                        .setQuantity(input.getQuantity());
+
+        if (input.getOrderType() != null) {
+            grpcRequest.setOrderType(OrderType.valueOf(input.getOrderType()));
+        }
+        if (input.getLimitPrice() != null) {
+            grpcRequest.setLimitPrice(input.getLimitPrice());
+        }
+        if (input.getAccountId() != null) {
+            grpcRequest.setAccountId(input.getAccountId());
+        }
+        return grpcRequest.build();
+    }
+
     private void validatePlaceOrder(PlaceOrderInput input) {
         if (input == null) {
             throw new IllegalArgumentException("order input must not be null");
@@ -146,5 +242,9 @@ public class StockGraphQLService {
         if (input.getQuantity() <= 0) {
             throw new IllegalArgumentException("quantity must be > 0");
         }
+        if ("LIMIT".equals(input.getOrderType())
+                && (input.getLimitPrice() == null || input.getLimitPrice() <= 0)) {
+            throw new IllegalArgumentException("limitPrice must be > 0 for LIMIT orders");
+        }
     }
 }
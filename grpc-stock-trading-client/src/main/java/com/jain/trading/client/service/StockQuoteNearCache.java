@@ -0,0 +1,202 @@
+package com.jain.trading.client.service;
+
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Optional in-memory quotes for a configured set of hot symbols, kept
+ * current by one {@code StreamPrices} stream.
+ * <p>
+ * A quote is served only while its last update is within
+ * {@code max-staleness-ms}; the server sends a symbol only when its price
+ * changes, so a quiet symbol falls back to a unary call, whose result
+ * refreshes the entry. Symbols outside the hot set are never cached.
+ * <p>
+ * Exported: {@code near_cache_requests_total{result=hit|stale|miss}},
+ * {@code near_cache_hit_ratio}, {@code near_cache_served_age_milliseconds} and
+ * {@code near_cache_oldest_quote_age_ms}.
+ */
+@Slf4j
+@Component
+public class StockQuoteNearCache {
+
+    private static final String WATCHLIST = "near-cache";
+
+    private record Entry(StockResponse quote, long receivedAtNanos) {
+    }
+
+    @GrpcClient("stockService")
+    private StockTradingServiceGrpc.StockTradingServiceStub asyncStub;
+
+    private final boolean enabled;
+    private final Set<String> hotSymbols;
+    private final long maxStalenessNanos;
+    private final long reconnectSeconds;
+
+    private final Map<String, Entry> quotes = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter misses;
+    private final DistributionSummary servedAge;
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "near-cache-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile PriceWatchlist stream;
+
+    public StockQuoteNearCache(MeterRegistry meterRegistry,
+                               @Value("${trading.near-cache.enabled:false}") boolean enabled,
+                               @Value("${trading.near-cache.symbols:}") List<String> hotSymbols,
+                               @Value("${trading.near-cache.max-staleness-ms:2000}") long maxStalenessMillis,
+                               @Value("${trading.near-cache.reconnect-seconds:5}") long reconnectSeconds) {
+        this.hotSymbols = hotSymbols.stream().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.enabled = enabled && !this.hotSymbols.isEmpty();
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        this.reconnectSeconds = reconnectSeconds;
+
+        this.hits = requests(meterRegistry, "hit");
+        this.stale = requests(meterRegistry, "stale");
+        this.misses = requests(meterRegistry, "miss");
+        this.servedAge = DistributionSummary.builder("near_cache_served_age")
+                .description("Age of quotes served from the near cache")
+                .baseUnit("milliseconds")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        Gauge.builder("near_cache_hit_ratio", this, StockQuoteNearCache::hitRatio)
+                .description("Share of near-cache lookups answered from memory")
+                .register(meterRegistry);
+        Gauge.builder("near_cache_oldest_quote_age_ms", this, StockQuoteNearCache::oldestQuoteAgeMillis)
+                .description("Age of the least recently updated hot quote")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Near cache enabled for {} symbols, max staleness {} ms",
+                hotSymbols.size(), TimeUnit.NANOSECONDS.toMillis(maxStalenessNanos));
+        openStream();
+        reconnector.scheduleWithFixedDelay(this::reconnectIfNeeded, reconnectSeconds, reconnectSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconnector.shutdownNow();
+        PriceWatchlist current = stream;
+        if (current != null && !current.isClosed()) {
+            current.close();
+        }
+    }
+
+    public boolean isHot(String stockSymbol) {
+        return enabled && hotSymbols.contains(stockSymbol);
+    }
+
+    /**
+     * @return a fresh quote, or null if the caller has to go to the server
+     */
+    public StockResponse get(String stockSymbol) {
+        if (!isHot(stockSymbol)) {
+            return null;
+        }
+
+        Entry entry = quotes.get(stockSymbol);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        long age = System.nanoTime() - entry.receivedAtNanos();
+        if (age > maxStalenessNanos) {
+            stale.increment();
+            return null;
+        }
+
+        hits.increment();
+        servedAge.record(TimeUnit.NANOSECONDS.toMillis(age));
+        return entry.quote();
+    }
+
+    /**
+     * Store a quote fetched with a unary call, unless the stream delivered
+     * a newer one while the call was in flight.
+     *
+     * @param requestedAtNanos {@link System#nanoTime()} when the call started
+     */
+    public void refresh(StockResponse quote, long requestedAtNanos) {
+        if (!isHot(quote.getStockSymbol())) {
+            return;
+        }
+        quotes.compute(quote.getStockSymbol(), (symbol, current) ->
+                current != null && current.receivedAtNanos() >= requestedAtNanos
+                        ? current
+                        : new Entry(quote, requestedAtNanos));
+    }
+
+    private void onQuote(StockResponse quote) {
+        quotes.put(quote.getStockSymbol(), new Entry(quote, System.nanoTime()));
+    }
+
+    private void openStream() {
+        PriceWatchlist watchlist = new PriceWatchlist(WATCHLIST, this::onQuote, closed -> { });
+        asyncStub.streamPrices(watchlist);
+        watchlist.add(hotSymbols);
+        stream = watchlist;
+    }
+
+    private void reconnectIfNeeded() {
+        PriceWatchlist current = stream;
+        if (current == null || current.isClosed()) {
+            log.warn("Near-cache price stream is down, reconnecting");
+            try {
+                openStream();
+            } catch (Exception e) {
+                log.error("Reconnecting near-cache price stream failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + stale.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private double oldestQuoteAgeMillis() {
+        long now = System.nanoTime();
+        long oldest = quotes.values().stream().mapToLong(Entry::receivedAtNanos).min().orElse(now);
+        return TimeUnit.NANOSECONDS.toMillis(now - oldest);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("near_cache_requests_total")
+                .description("Near-cache lookups for hot symbols by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
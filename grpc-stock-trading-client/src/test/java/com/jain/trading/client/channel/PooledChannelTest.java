@@ -0,0 +1,197 @@
+package com.jain.trading.client.channel;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.jain.grpc.StockRequest;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc.StockTradingServiceGrpc;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledChannelTest {
+
+    private static final StockRequest REQUEST = StockRequest.newBuilder().setStockSymbol("AAPL").build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Server> servers = new ArrayList<>();
+    private final List<Replica> replicas = new ArrayList<>();
+    private PooledChannel channel;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        replicas.forEach(Replica::release);
+        if (channel != null) {
+            channel.shutdown();
+        }
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void roundRobinSpreadsCallsEvenly() throws IOException {
+        List<String> names = List.of(start(false).name, start(false).name, start(false).name);
+        channel = pool(BalancingPolicy.ROUND_ROBIN, Duration.ofSeconds(5));
+        channel.setBackends(names);
+
+        StockTradingServiceGrpc.StockTradingServiceBlockingStub stub = StockTradingServiceGrpc.newBlockingStub(channel);
+        for (int i = 0; i < 30; i++) {
+            stub.getStockPrice(REQUEST);
+        }
+
+        assertThat(replicas).extracting(r -> r.received.get()).containsExactly(10, 10, 10);
+    }
+
+    @Test
+    void leastOutstandingAvoidsTheSlowReplica() throws Exception {
+        Replica slow = start(true);
+        Replica fast = start(false);
+        channel = pool(BalancingPolicy.LEAST_OUTSTANDING, Duration.ofSeconds(5));
+        channel.setBackends(List.of(slow.name, fast.name));
+
+        StockTradingServiceGrpc.StockTradingServiceFutureStub stub = StockTradingServiceGrpc.newFutureStub(channel);
+        int answered = 0;
+        for (int i = 0; i < 20; i++) {
+            ListenableFuture<StockResponse> response = stub.getStockPrice(REQUEST);
+            try {
+                response.get(200, TimeUnit.MILLISECONDS);
+                answered++;
+            } catch (TimeoutException e) {
+                // Parked on the slow replica, which keeps it busy for the rest of the test
+            }
+        }
+
+        assertThat(slow.received.get()).isLessThanOrEqualTo(1);
+        assertThat(answered).isGreaterThanOrEqualTo(19);
+    }
+
+    @Test
+    void removedReplicaFinishesOpenCallsBeforeClosing() throws Exception {
+        Replica removed = start(true);
+        Replica kept = start(false);
+        channel = pool(BalancingPolicy.ROUND_ROBIN, Duration.ofSeconds(5));
+        channel.setBackends(List.of(removed.name));
+
+        StockTradingServiceGrpc.StockTradingServiceFutureStub stub = StockTradingServiceGrpc.newFutureStub(channel);
+        ListenableFuture<StockResponse> open = stub.getStockPrice(REQUEST);
+        awaitReceived(removed, 1);
+
+        // Returns at once; the removed replica drains in the background
+        channel.setBackends(List.of(kept.name));
+        assertThat(channel.getBackends()).containsExactly(kept.name);
+        assertThat(meterRegistry.find("grpc_client_backend_in_flight").tag("backend", removed.name).gauge()).isNull();
+
+        assertThat(stub.getStockPrice(REQUEST).get(5, TimeUnit.SECONDS).getStockSymbol()).isEqualTo(kept.name);
+        assertThat(open).isNotDone();
+
+        removed.release();
+        assertThat(open.get(5, TimeUnit.SECONDS).getStockSymbol()).isEqualTo(removed.name);
+    }
+
+    @Test
+    void removedReplicaCancelsCallsStillOpenAfterTheGracePeriod() throws Exception {
+        Replica removed = start(true);
+        Replica kept = start(false);
+        channel = pool(BalancingPolicy.ROUND_ROBIN, Duration.ofMillis(100));
+        channel.setBackends(List.of(removed.name));
+
+        ListenableFuture<StockResponse> open = StockTradingServiceGrpc.newFutureStub(channel).getStockPrice(REQUEST);
+        awaitReceived(removed, 1);
+
+        channel.setBackends(List.of(kept.name));
+
+        assertThatThrownBy(() -> open.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(StatusRuntimeException.class);
+    }
+
+    @Test
+    void emptyBackendListFailsUnavailable() {
+        channel = pool(BalancingPolicy.LEAST_OUTSTANDING, Duration.ofSeconds(5));
+        channel.setBackends(List.of());
+
+        assertThatThrownBy(() -> StockTradingServiceGrpc.newBlockingStub(channel).getStockPrice(REQUEST))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE));
+    }
+
+    private PooledChannel pool(BalancingPolicy policy, Duration gracePeriod) {
+        return new PooledChannel("test", policy, 2, gracePeriod,
+                name -> InProcessChannelBuilder.forName(name).directExecutor().build(), meterRegistry);
+    }
+
+    private Replica start(boolean hold) throws IOException {
+        Replica replica = new Replica(InProcessServerBuilder.generateName(), hold);
+        servers.add(InProcessServerBuilder.forName(replica.name)
+                .directExecutor()
+                .addService(replica)
+                .build()
+                .start());
+        replicas.add(replica);
+        return replica;
+    }
+
+    private static void awaitReceived(Replica replica, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (replica.received.get() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(replica.received.get()).isEqualTo(calls);
+    }
+
+    /**
+     * Answers with its own name, either at once or only when released.
+     */
+    private static final class Replica extends StockTradingServiceGrpc.StockTradingServiceImplBase {
+
+        private final String name;
+        private final boolean hold;
+        private final AtomicInteger received = new AtomicInteger();
+        private final Queue<StreamObserver<StockResponse>> held = new ConcurrentLinkedQueue<>();
+
+        Replica(String name, boolean hold) {
+            this.name = name;
+            this.hold = hold;
+        }
+
+        @Override
+        public void getStockPrice(StockRequest request, StreamObserver<StockResponse> responseObserver) {
+            received.incrementAndGet();
+            if (hold) {
+                held.add(responseObserver);
+            } else {
+                answer(responseObserver);
+            }
+        }
+
+        void release() {
+            StreamObserver<StockResponse> observer;
+            while ((observer = held.poll()) != null) {
+                answer(observer);
+            }
+        }
+
+        private void answer(StreamObserver<StockResponse> responseObserver) {
+            responseObserver.onNext(StockResponse.newBuilder().setStockSymbol(name).setPrice(100.0).build());
+            responseObserver.onCompleted();
+        }
+    }
+}
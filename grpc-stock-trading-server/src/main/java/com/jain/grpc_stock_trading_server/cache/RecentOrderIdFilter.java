@@ -0,0 +1,127 @@
+package com.jain.grpc_stock_trading_server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory guard against replayed orderIds, checked before the order insert.
+ * <p>
+ * A rotating Bloom filter remembers every recently placed orderId cheaply.
+ * Only on a Bloom hit is the bounded exact set of the last few seconds'
+ * orderIds consulted; a hit there is rejected without touching Mongo.
+ * Anything else goes on to the insert, where the unique index on
+ * {@code orderId} stays the source of truth.
+ * <p>
+ * Exported counters:
+ * {@code order_id_filter_checks_total},
+ * {@code order_id_filter_rejections_total} (replays stopped in memory),
+ * {@code order_id_filter_false_positives_total} (Bloom hit, but the insert succeeded),
+ * {@code order_id_filter_late_duplicates_total} (duplicates only the index caught).
+ */
+@Slf4j
+@Component
+public class RecentOrderIdFilter {
+
+    public enum Verdict {
+        /** Definitely not placed recently */
+        NEW,
+        /** Bloom hit without exact confirmation; may still be new */
+        SUSPECT,
+        /** Placed within the exact window */
+        DUPLICATE
+    }
+
+    private final boolean enabled;
+    private final RotatingBloomFilter bloomFilter;
+    private final Cache<String, Boolean> recentIds;
+
+    private final Counter checks;
+    private final Counter rejections;
+    private final Counter falsePositives;
+    private final Counter lateDuplicates;
+
+    public RecentOrderIdFilter(MeterRegistry meterRegistry,
+                               @Value("${trading.orders.id-filter.enabled:true}") boolean enabled,
+                               @Value("${trading.orders.id-filter.expected-ids-per-window:1000000}") long expectedIds,
+                               @Value("${trading.orders.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${trading.orders.id-filter.window-seconds:300}") long windowSeconds,
+                               @Value("${trading.orders.id-filter.exact-window-seconds:30}") long exactWindowSeconds,
+                               @Value("${trading.orders.id-filter.exact-max-size:100000}") long exactMaxSize) {
+        this.enabled = enabled;
+        this.bloomFilter = new RotatingBloomFilter(expectedIds, falsePositiveRate, Duration.ofSeconds(windowSeconds).toMillis());
+        this.recentIds = Caffeine.newBuilder()
+                .maximumSize(exactMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(exactWindowSeconds))
+                .build();
+
+        this.checks = Counter.builder("order_id_filter_checks_total")
+                .description("orderIds checked against the recent-order filter")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("order_id_filter_rejections_total")
+                .description("Replayed orderIds rejected without a Mongo round trip")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("order_id_filter_false_positives_total")
+                .description("Bloom filter hits for orderIds that turned out to be new")
+                .register(meterRegistry);
+        this.lateDuplicates = Counter.builder("order_id_filter_late_duplicates_total")
+                .description("Duplicate orderIds caught by the unique index instead of the filter")
+                .register(meterRegistry);
+
+        log.info("Recent orderId filter: enabled={}, bloom bits={}, hashes={}",
+                enabled, bloomFilter.bitCount(), bloomFilter.hashCount());
+    }
+
+    public Verdict check(String orderId) {
+        if (!enabled) {
+            return Verdict.NEW;
+        }
+        checks.increment();
+
+        if (!bloomFilter.mightContain(orderId)) {
+            return Verdict.NEW;
+        }
+        if (recentIds.getIfPresent(orderId) != null) {
+            rejections.increment();
+            return Verdict.DUPLICATE;
+        }
+        return Verdict.SUSPECT;
+    }
+
+    /**
+     * The order was inserted; remember its id.
+     *
+     * @param verdict what {@link #check} said before the insert
+     */
+    public void recordInserted(String orderId, Verdict verdict) {
+        if (!enabled) {
+            return;
+        }
+        if (verdict == Verdict.SUSPECT) {
+            falsePositives.increment();
+        }
+        remember(orderId);
+    }
+
+    /**
+     * The insert failed on the unique index.
+     */
+    public void recordDuplicate(String orderId) {
+        if (!enabled) {
+            return;
+        }
+        lateDuplicates.increment();
+        remember(orderId);
+    }
+
+    private void remember(String orderId) {
+        bloomFilter.add(orderId);
+        recentIds.put(orderId, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,113 @@
+package com.jain.grpc_stock_trading_server.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Two-generation Bloom filter over strings. Keys are added to the current
+ * generation and looked up in both; every {@code windowMillis} the previous
+ * generation is dropped, so a key is remembered for one to two windows.
+ * <p>
+ * Lock-free for add and lookup; rotation swaps generations under a lock.
+ */
+class RotatingBloomFilter {
+
+    private final int bitCount;
+    private final int hashCount;
+    private final long windowMillis;
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    private volatile long rotateAtMillis;
+
+    /**
+     * @param expectedKeys keys added per window
+     * @param falsePositiveRate target rate for one generation
+     */
+    RotatingBloomFilter(long expectedKeys, double falsePositiveRate, long windowMillis) {
+        double bits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedKeys * Math.log(2)));
+        this.windowMillis = windowMillis;
+        this.current = newGeneration();
+        this.previous = newGeneration();
+        this.rotateAtMillis = System.currentTimeMillis() + windowMillis;
+    }
+
+    boolean mightContain(String key) {
+        rotateIfDue();
+        long hash = hash64(key);
+        return contains(current, hash) || contains(previous, hash);
+    }
+
+    void add(String key) {
+        rotateIfDue();
+        long hash = hash64(key);
+        AtomicLongArray bits = current;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long value;
+            while (((value = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                // retry on concurrent update of the same word
+            }
+        }
+    }
+
+    int bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private boolean contains(AtomicLongArray bits, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotateIfDue() {
+        if (System.currentTimeMillis() < rotateAtMillis) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now < rotateAtMillis) {
+                return;
+            }
+            // After a long idle gap both generations are stale
+            previous = now - rotateAtMillis >= windowMillis ? newGeneration() : current;
+            current = newGeneration();
+            rotateAtMillis = now + windowMillis;
+        }
+    }
+
+    private AtomicLongArray newGeneration() {
+        return new AtomicLongArray((bitCount + 63) >>> 6);
+    }
+
+    // FNV-1a over UTF-16 chars, finished with the murmur3 fmix64 avalanche
+    private static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
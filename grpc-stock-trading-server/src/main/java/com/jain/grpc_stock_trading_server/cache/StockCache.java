@@ -0,0 +1,146 @@
+package com.jain.grpc_stock_trading_server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.repository.ReactiveStockRepository;
+import com.jain.grpc_stock_trading_server.repository.StockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of {@link Stock} entities keyed by symbol.
+ * <p>
+ * Bounded by size and TTL. Unknown symbols are cached as empty entries
+ * with a shorter TTL so repeated bad lookups don't reach Mongo. Prices
+ * pushed through the hub refresh cached entries in place.
+ * Hit/miss/eviction counts are exported as {@code cache.*{cache=stocks}}.
+ */
+@Slf4j
+@Component
+public class StockCache {
+
+    private final StockRepository stockRepository;
+    private final ReactiveStockRepository reactiveStockRepository;
+    private final Cache<String, Optional<Stock>> cache;
+
+    public StockCache(StockRepository stockRepository,
+                      ReactiveStockRepository reactiveStockRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${trading.cache.stocks.max-size:10000}") long maxSize,
+                      @Value("${trading.cache.stocks.ttl-seconds:30}") long ttlSeconds,
+                      @Value("${trading.cache.stocks.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.stockRepository = stockRepository;
+        this.reactiveStockRepository = reactiveStockRepository;
+
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        long negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Optional<Stock>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<Stock> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<Stock> value, long currentTime, long currentDuration) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<Stock> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stocks");
+    }
+
+    /**
+     * @return the stock, or null if the symbol does not exist
+     */
+    public Stock get(String stockSymbol) {
+        return cache.get(stockSymbol, symbol -> Optional.ofNullable(stockRepository.findByStockSymbol(symbol)))
+                .orElse(null);
+    }
+
+    /**
+     * Non-blocking lookup: a hit completes immediately, a miss is loaded
+     * through the reactive driver and cached when it arrives.
+     *
+     * @return the stock, or an empty Mono if the symbol does not exist
+     */
+    public Mono<Stock> getAsync(String stockSymbol) {
+        Optional<Stock> cached = cache.getIfPresent(stockSymbol);
+        if (cached != null) {
+            return Mono.justOrEmpty(cached);
+        }
+        return reactiveStockRepository.findByStockSymbol(stockSymbol)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                // Keep a price the hub refreshed while the load was in flight
+                .map(loaded -> cache.asMap().merge(stockSymbol, loaded, (current, ignored) -> current))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Bulk lookup; all misses are loaded with a single {@code $in} query.
+     *
+     * @return the known stocks keyed by symbol; unknown symbols are absent
+     */
+    public Map<String, Stock> getAll(Collection<String> stockSymbols) {
+        Map<String, Optional<Stock>> entries = cache.getAll(stockSymbols, missing -> {
+            Map<String, Optional<Stock>> loaded = new HashMap<>();
+            missing.forEach(symbol -> loaded.put(symbol, Optional.empty()));
+            stockRepository.findByStockSymbolIn(loaded.keySet())
+                    .forEach(stock -> loaded.put(stock.getStockSymbol(), Optional.of(stock)));
+            return loaded;
+        });
+
+        Map<String, Stock> found = new HashMap<>();
+        entries.forEach((symbol, stock) -> stock.ifPresent(s -> found.put(symbol, s)));
+        return found;
+    }
+
+    /**
+     * Apply a newer price to a cached entry. Symbols we never looked up are
+     * left alone, and so are negative entries: those expire on their own.
+     */
+    public void refresh(StockResponse update) {
+        LocalDateTime updatedAt = LocalDateTime.parse(update.getTimestamp());
+
+        cache.asMap().computeIfPresent(update.getStockSymbol(), (symbol, cached) -> cached.map(stock -> {
+            if (stock.getLastUpdated() != null && stock.getLastUpdated().isAfter(updatedAt)) {
+                return stock;
+            }
+            // Cached instances are shared across threads, never mutate them
+            return Stock.builder()
+                    .id(stock.getId())
+                    .stockSymbol(symbol)
+                    .price(update.getPrice())
+                    .lastUpdated(updatedAt)
+                    .build();
+        }));
+    }
+
+    public void invalidate(String stockSymbol) {
+        cache.invalidate(stockSymbol);
+    }
+}
@@ -1,16 +1,62 @@
 package com.jain.grpc_stock_trading_server.config;
 
-import io.grpc.*;
+import com.google.protobuf.MessageLite;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import io.micrometer.core.instrument.Counter;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The server's only metrics interceptor. Per method (full gRPC name):
+ * <ul>
+ *   <li>{@code grpc_server_duration_seconds{method,status}}: latency, with buckets at the
+ *       configured SLOs; its {@code _count} is the number of calls</li>
+ *   <li>{@code grpc_server_in_flight{method}}: calls started and not yet finished</li>
+ *   <li>{@code grpc_server_messages_received_total} / {@code _sent_total{method}}: messages</li>
+ *   <li>{@code grpc_server_request_bytes_total} / {@code grpc_server_response_bytes_total{method}}:
+ *       their serialized size, so bytes over messages is the average message size</li>
+ *   <li>{@code grpc_server_stream_messages_sent{method}} / {@code _received}: messages per call,
+ *       for streaming methods only (e.g. updates per {@code subscribeStockPrice} stream)</li>
+ * </ul>
+ * Meters are looked up once per method and status and then cached. A
+ * unary call costs two clock reads, one timer update and a few
+ * {@link LongAdder} increments; sizes are plain counters rather than
+ * distribution summaries because those cost several times as much per
+ * message. A call the client cancelled is recorded as {@code CANCELLED}.
+ */
 public class GrpcMetricsInterceptor implements ServerInterceptor {
 
+    private static final long[] DEFAULT_SLO_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500};
+
     private final MeterRegistry meterRegistry;
+    private final Duration[] slos;
+    private final Map<String, MethodMeters> methods = new ConcurrentHashMap<>();
 
     public GrpcMetricsInterceptor(MeterRegistry meterRegistry) {
+        this(meterRegistry, DEFAULT_SLO_MILLIS);
+    }
+
+    public GrpcMetricsInterceptor(MeterRegistry meterRegistry, long[] sloMillis) {
         this.meterRegistry = meterRegistry;
+        this.slos = Arrays.stream(sloMillis).sorted().mapToObj(Duration::ofMillis).toArray(Duration[]::new);
     }
 
     @Override
@@ -19,26 +65,174 @@ public class GrpcMetricsInterceptor implements ServerInterceptor {
             Metadata headers,
             ServerCallHandler<ReqT, RespT> next) {
 
-        String methodName = call.getMethodDescriptor().getFullMethodName();
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        MethodMeters meters = methods.get(method.getFullMethodName());
+        if (meters == null) {
+            meters = methods.computeIfAbsent(method.getFullMethodName(), name -> new MethodMeters(name, method.getType()));
+        }
+
+        MeteredCall<ReqT, RespT> metered = new MeteredCall<>(call, meters);
+        meters.inFlight.incrementAndGet();
+        try {
+            return new MeteredListener<>(next.startCall(metered, headers), metered);
+        } catch (RuntimeException e) {
+            metered.finish(Status.fromThrowable(e));
+            throw e;
+        }
+    }
+
+    private final class MethodMeters {
+
+        private final String method;
+        private final boolean streamsOut;
+        private final boolean streamsIn;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder messagesIn = new LongAdder();
+        private final LongAdder messagesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final DistributionSummary messagesSent;
+        private final DistributionSummary messagesReceived;
+        // Indexed by Status.Code ordinal, filled on first use
+        private final AtomicReferenceArray<Timer> durations = new AtomicReferenceArray<>(Status.Code.values().length);
+
+        private MethodMeters(String method, MethodDescriptor.MethodType type) {
+            this.method = method;
+            this.streamsOut = !type.serverSendsOneMessage();
+            this.streamsIn = !type.clientSendsOneMessage();
+
+            Gauge.builder("grpc_server_in_flight", inFlight, AtomicInteger::get)
+                    .description("gRPC calls in progress")
+                    .tag("method", method)
+                    .register(meterRegistry);
+            counter("grpc_server_messages_received_total", "Messages received", messagesIn);
+            counter("grpc_server_messages_sent_total", "Messages sent", messagesOut);
+            counter("grpc_server_request_bytes_total", "Serialized size of received messages", bytesIn);
+            counter("grpc_server_response_bytes_total", "Serialized size of sent messages", bytesOut);
+            this.messagesSent = streamsOut
+                    ? DistributionSummary.builder("grpc_server_stream_messages_sent")
+                    .description("Messages sent per streaming call")
+                    .tag("method", method)
+                    .register(meterRegistry)
+                    : null;
+            this.messagesReceived = streamsIn
+                    ? DistributionSummary.builder("grpc_server_stream_messages_received")
+                    .description("Messages received per streaming call")
+                    .tag("method", method)
+                    .register(meterRegistry)
+                    : null;
+        }
+
+        private void record(Status.Code code, long elapsedNanos, long sent, long received) {
+            inFlight.decrementAndGet();
+            duration(code).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (messagesSent != null) {
+                messagesSent.record(sent);
+            }
+            if (messagesReceived != null) {
+                messagesReceived.record(received);
+            }
+        }
+
+        private Timer duration(Status.Code code) {
+            Timer timer = durations.get(code.ordinal());
+            if (timer == null) {
+                timer = Timer.builder("grpc_server_duration_seconds")
+                        .description("gRPC server call latency")
+                        .tags("method", method, "status", code.name())
+                        .serviceLevelObjectives(slos)
+                        .register(meterRegistry);
+                durations.set(code.ordinal(), timer);
+            }
+            return timer;
+        }
+
+        private void counter(String name, String description, LongAdder value) {
+            FunctionCounter.builder(name, value, LongAdder::sum)
+                    .description(description)
+                    .tag("method", method)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final class MeteredCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
 
-        Timer.Sample sample = Timer.start(meterRegistry);
-        Counter counter = meterRegistry.counter("grpc_server_calls_total", "method", methodName);
+        private final MethodMeters meters;
+        private final long startNanos = System.nanoTime();
+        private volatile Status.Code code;
+        private volatile boolean finished;
+        private long sent;
+        private long received;
+
+        private MeteredCall(ServerCall<ReqT, RespT> delegate, MethodMeters meters) {
+            super(delegate);
+            this.meters = meters;
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            sent++;
+            meters.messagesOut.increment();
+            if (message instanceof MessageLite proto) {
+                // Memoized by protobuf, so serialization does not compute it again
+                meters.bytesOut.add(proto.getSerializedSize());
+            }
+            super.sendMessage(message);
+        }
 
-        ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+        @Override
+        public void close(Status status, Metadata trailers) {
+            code = status.getCode();
+            super.close(status, trailers);
+        }
 
-        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(listener) {
-            @Override
-            public void onComplete() {
-                sample.stop(meterRegistry.timer("grpc_server_duration_seconds", "method", methodName));
-                counter.increment();
-                super.onComplete();
+        private void received(ReqT message) {
+            received++;
+            meters.messagesIn.increment();
+            if (message instanceof MessageLite proto) {
+                meters.bytesIn.add(proto.getSerializedSize());
             }
+        }
 
-            @Override
-            public void onCancel() {
-                sample.stop(meterRegistry.timer("grpc_server_duration_seconds", "method", methodName));
-                super.onCancel();
+        private void finish(Status fallback) {
+            if (finished) {
+                return;
             }
-        };
+            finished = true;
+            Status.Code closedWith = code;
+            meters.record(closedWith != null ? closedWith : fallback.getCode(),
+                    System.nanoTime() - startNanos, sent, received);
+        }
+    }
+
+    private static final class MeteredListener<ReqT>
+            extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final MeteredCall<ReqT, ?> call;
+
+        private MeteredListener(ServerCall.Listener<ReqT> delegate, MeteredCall<ReqT, ?> call) {
+            super(delegate);
+            this.call = call;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            call.received(message);
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onComplete() {
+            call.finish(Status.OK);
+            super.onComplete();
+        }
+
+        @Override
+        public void onCancel() {
+            // Also called after close() if the client went away first
+            call.finish(Status.CANCELLED);
+            super.onCancel();
+        }
     }
 }
@@ -1,7 +1,9 @@
 package com.jain.grpc_stock_trading_server.config;
 
+import com.jain.grpc_stock_trading_server.tracing.OrderTrace;
 import io.micrometer.core.instrument.MeterRegistry;
 import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,7 +12,14 @@ public class GrpcServerConfig {
 
     @Bean
     @GrpcGlobalServerInterceptor
-    public GrpcMetricsInterceptor grpcMetricsInterceptor(MeterRegistry meterRegistry) {
-        return new GrpcMetricsInterceptor(meterRegistry);
+    public GrpcMetricsInterceptor grpcMetricsInterceptor(MeterRegistry meterRegistry,
+                                                         @Value("${trading.grpc.metrics.slo-ms:1,5,10,25,50,100,250,500,1000,2500}") long[] sloMillis) {
+        return new GrpcMetricsInterceptor(meterRegistry, sloMillis);
+    }
+
+    @Bean
+    @GrpcGlobalServerInterceptor
+    public OrderTrace.GrpcInterceptor orderTraceInterceptor() {
+        return new OrderTrace.GrpcInterceptor();
     }
 }
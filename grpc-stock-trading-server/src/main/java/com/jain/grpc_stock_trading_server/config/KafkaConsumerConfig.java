@@ -1,15 +1,22 @@
 package com.jain.grpc_stock_trading_server.config;
 
 import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.kafka.OrderPlacedEventDeserializer;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,22 +25,46 @@ import java.util.Map;
 @EnableKafka
 public class KafkaConsumerConfig {
 
+    // Upper bound on events per poll, i.e. per batch in batch mode
+    @Value("${trading.kafka.consumer.batch-size:500}")
+    private int batchSize;
+
+    // Listener threads per container; each owns a share of the order-placed partitions
+    @Value("${trading.kafka.consumer.concurrency:1}")
+    private int concurrency;
+
+    @Value("${trading.kafka.order-events.partitions:1}")
+    private int partitions;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Records are keyed by account, so every partition is one ordered lane
+     * of accounts and threads beyond the partition count sit idle. Creates
+     * the topic, or adds partitions to an existing one; adding partitions
+     * moves accounts to new lanes, so do it while the topic is drained.
+     */
     @Bean
-    public ConsumerFactory<String, OrderPlacedEvent> consumerFactory() {
+    public NewTopic orderPlacedTopic() {
+        return TopicBuilder.name("order-placed")
+                .partitions(Math.max(partitions, concurrency))
+                .build();
+    }
 
-        JsonDeserializer<OrderPlacedEvent> valueDeserializer =
-                new JsonDeserializer<>(OrderPlacedEvent.class);
+    @Bean
+    public ConsumerFactory<String, OrderPlacedEvent> consumerFactory() {
 
-        valueDeserializer.addTrustedPackages(
-                "com.jain.grpc_stock_trading_server.events"
-        );
+        // Protobuf, with a fallback for JSON records written before the switch
+        OrderPlacedEventDeserializer valueDeserializer = new OrderPlacedEventDeserializer();
 
         Map<String, Object> props = new HashMap<>();
 
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "order-execution-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderPlacedEventDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
 
         return new DefaultKafkaConsumerFactory<>(
                 props,
@@ -50,7 +81,36 @@ public class KafkaConsumerConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
 
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        useVirtualThreadsIfEnabled(factory);
+
+        return factory;
+    }
+
+    /**
+     * Hands the listener a whole poll at a time; used when
+     * {@code trading.kafka.consumer.batch-mode=true}.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent>
+    batchKafkaListenerContainerFactory() {
+
+        ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        useVirtualThreadsIfEnabled(factory);
 
         return factory;
     }
+
+    // spring.threads.virtual.enabled on Java 21+; see VirtualThreadConfig
+    private void useVirtualThreadsIfEnabled(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            factory.getContainerProperties()
+                    .setListenerTaskExecutor(new VirtualThreadTaskExecutor("order-consumer-vt-"));
+        }
+    }
 }
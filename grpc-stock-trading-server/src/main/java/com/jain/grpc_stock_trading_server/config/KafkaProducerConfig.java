@@ -1,7 +1,10 @@
 package com.jain.grpc_stock_trading_server.config;
 
+import com.jain.grpc_stock_trading_server.kafka.OrderPlacedEventSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -15,16 +18,23 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    // protobuf or json; keep json until every consumer reads protobuf
+    @Value("${trading.kafka.order-events.format:protobuf}")
+    private String format;
+
     @Bean
+    @SuppressWarnings("unchecked")
     public ProducerFactory<String, Object> producerFactory() {
 
         Map<String, Object> config = new HashMap<>();
 
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
 
-        return new DefaultKafkaProducerFactory<>(config);
+        Serializer<Object> valueSerializer = "json".equalsIgnoreCase(format)
+                ? new JsonSerializer<>()
+                : (Serializer<Object>) (Serializer<?>) new OrderPlacedEventSerializer();
+
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(), valueSerializer);
     }
 
     @Bean
@@ -0,0 +1,32 @@
+package com.jain.grpc_stock_trading_server.config;
+
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Opt-in virtual-thread execution, active with
+ * {@code spring.threads.virtual.enabled=true} on a Java 21+ runtime.
+ * <p>
+ * gRPC calls and stream callbacks then run on one virtual thread per task
+ * instead of the default cached pool, so blocking Mongo calls no longer tie
+ * up a platform thread each. The Kafka listener containers pick up the same
+ * mode in {@link KafkaConsumerConfig}. Dedicated single-writer threads
+ * (matching shards, fill recorder, price flusher) stay on platform threads.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public GrpcServerConfigurer virtualThreadGrpcExecutor() {
+        log.info("gRPC server calls will run on virtual threads");
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("grpc-vt-");
+        return serverBuilder -> serverBuilder.executor(executor);
+    }
+}
@@ -22,12 +22,22 @@ public class Order {
 
     @Indexed(unique = true)
     private String orderId;
+    private String accountId; // null on orders placed before accounts, i.e. the default account
     private String stockSymbol;
 
     private String side; // BUY / SELL
     private int quantity;
 
-    private String status; // ACCEPTED / EXECUTED / REJECTED
+    private String orderType; // MARKET / LIMIT, null on orders placed before limit support
+    private double limitPrice;
+
+    private String status; // ACCEPTED / PARTIALLY_FILLED / EXECUTED / REJECTED
+
+    // Book fills only; market orders are executed without a fill price
+    private int filledQuantity;
+    private double filledNotional; // sum of price * quantity over all fills
+
+    private LocalDateTime bookedAt; // LIMIT orders: when the consumer first put it on the book
 
     private LocalDateTime createdAt;
 }
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -17,10 +18,24 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Portfolio {
+
+    /** Account of orders and requests that do not name one */
+    public static final String DEFAULT_ACCOUNT = "default";
+
     @Id
     private ObjectId id;
 
+    @Indexed(unique = true)
+    private String accountId;
+
     private Map<String, Integer> holdings;
 
+    // Open limit SELLs: order _id (hex) -> quantity taken out of holdings when booked
+    private Map<String, Integer> reserved;
+
     private LocalDateTime lastUpdated;
+
+    public static String accountOrDefault(String accountId) {
+        return accountId == null || accountId.isBlank() ? DEFAULT_ACCOUNT : accountId;
+    }
 }
@@ -27,4 +27,15 @@ public class Stock {
 
     @Field("last_updated")
     private LocalDateTime lastUpdated;
+
+    /**
+     * Symbols are used as field names under {@code holdings} in portfolio
+     * documents, where a '.' or a leading '$' would address another path.
+     */
+    public static boolean isValidSymbol(String stockSymbol) {
+        return !stockSymbol.isBlank()
+                && stockSymbol.indexOf('.') < 0
+                && stockSymbol.indexOf('\0') < 0
+                && !stockSymbol.startsWith("$");
+    }
 }
@@ -14,8 +14,11 @@ import java.time.Instant;
 public class OrderPlacedEvent {
 
     private String orderId;
+    private String accountId;
     private String stockSymbol;
     private String side; // BUY / SELL
     private int quantity;
+    private String orderType; // MARKET / LIMIT
+    private double limitPrice;
     private Instant createdAt;
 }
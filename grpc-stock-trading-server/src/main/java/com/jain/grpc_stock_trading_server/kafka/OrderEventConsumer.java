@@ -3,36 +3,105 @@ package com.jain.grpc_stock_trading_server.kafka;
 import com.jain.grpc_stock_trading_server.entity.Order;
 import com.jain.grpc_stock_trading_server.entity.Portfolio;
 import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.matching.MatchingEngine;
 import com.jain.grpc_stock_trading_server.repository.OrderRepository;
 import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepositoryCustom.Reservation;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import com.jain.grpc_stock_trading_server.tracing.OrderTrace;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OrderEventConsumer {
 
+    /** Outcome of a limit order handed to the order book */
+    private static final String BOOKED = "BOOKED";
+
     private final OrderRepository orderRepository;
     private final PortfolioRepository portfolioRepository;
+    private final MatchingEngine matchingEngine;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final OrderStatusHub orderStatusHub;
+    private final PortfolioView portfolioView;
+
+    // Loads every open order; see application.properties before running several instances
+    @Value("${trading.matching.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @PostConstruct
+    public void start() {
+        if (rebuildOnStartup) {
+            rebuildBooks();
+        }
+    }
+
+    /**
+     * Put every open limit order back on its book, oldest first. Runs before
+     * the listeners start, so each shard sees the rebuilt book before any new
+     * order. An order whose event was never consumed is booked with the usual
+     * checks now, and that event is skipped as a redelivery later. A SELL
+     * booked before reservations existed reserves its unfilled quantity now.
+     */
+    public void rebuildBooks() {
+        List<Order> open = orderRepository.findByOrderTypeAndStatusInOrderByCreatedAtAsc(
+                "LIMIT", List.of("ACCEPTED", "PARTIALLY_FILLED"));
+
+        int unbooked = 0;
+        for (Order order : open) {
+            if (!isBooked(order)) {
+                book(order, null);
+                unbooked++;
+            } else if (reserve(order)) {
+                matchingEngine.submit(order);
+            } else {
+                finish(order, "REJECTED", null);
+            }
+        }
+        log.info("Rebuilt order books from {} open limit orders ({} not booked before)", open.size(), unbooked);
+    }
 
     @Transactional
     @KafkaListener(
             topics = "order-placed",
-            groupId = "order-execution-group"
+            groupId = "order-execution-group",
+            autoStartup = "#{!${trading.kafka.consumer.batch-mode:false}}"
     )
-    public void consume(OrderPlacedEvent event) {
+    public void consume(ConsumerRecord<String, OrderPlacedEvent> record) {
+        OrderPlacedEvent event = record.value();
+        lifecycleMetrics.received(event.getCreatedAt());
+
+        withTrace(record, () -> execute(event));
+    }
+
+    private void execute(OrderPlacedEvent event) {
 
         log.info("Received OrderPlacedEvent for orderId={}", event.getOrderId());
 
         // --- Fetch order ---
+        long stageStart = System.nanoTime();
         Order order = orderRepository.findByOrderId(event.getOrderId());
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.ORDER_LOOKUP, stageStart);
         if (order == null) {
             log.error("Order not found for orderId={}, skipping execution", event.getOrderId());
             return;
@@ -44,66 +113,299 @@ public class OrderEventConsumer {
             return;
         }
 
-        // --- Load Portfolio ---
-        Portfolio portfolio = portfolioRepository.findAll()
-                .stream()
-                .findFirst()
-                .orElse(
-                        Portfolio.builder()
-                                .holdings(new HashMap<>())
-                                .lastUpdated(LocalDateTime.now())
-                                .build()
-                );
-
-
-        int currentHolding =
-                portfolio.getHoldings().getOrDefault(order.getStockSymbol(), 0);
+        // --- Limit orders rest on the book; fills update their status ---
+        if ("LIMIT".equals(order.getOrderType())) {
+            if (isBooked(order)) {
+                log.warn("Order {} is already on the book, ignoring redelivery", order.getOrderId());
+                return;
+            }
+            book(order, event.getCreatedAt());
+            return;
+        }
 
         try {
-            // --- Update Portfolio ---
+            // --- Update Portfolio: one conditional $inc per execution ---
+            stageStart = System.nanoTime();
+            boolean applied = true;
+            int delta = 0;
             if ("BUY".equals(order.getSide())) {
 
-                portfolio.getHoldings().put(
-                        order.getStockSymbol(),
-                        currentHolding + order.getQuantity()
-                );
+                portfolioRepository.addHolding(accountOf(order), order.getStockSymbol(), order.getQuantity());
+                delta = order.getQuantity();
 
             } else if ("SELL".equals(order.getSide())) {
 
-                if (currentHolding < order.getQuantity()) {
-                    log.warn(
-                            "Rejecting SELL order {}: insufficient holdings (have={}, want={})",
-                            order.getOrderId(),
-                            currentHolding,
-                            order.getQuantity()
-                    );
-
-                    order.setStatus("REJECTED");
-                    orderRepository.save(order);
-                    return;
-                }
+                applied = portfolioRepository.removeHolding(accountOf(order), order.getStockSymbol(), order.getQuantity());
+                delta = -order.getQuantity();
+            }
+            lifecycleMetrics.record(OrderLifecycleMetrics.Stage.PORTFOLIO_WRITE, stageStart);
 
-                portfolio.getHoldings().put(
-                        order.getStockSymbol(),
-                        currentHolding - order.getQuantity()
+            if (!applied) {
+                log.warn(
+                        "Rejecting SELL order {}: insufficient holdings (want={})",
+                        order.getOrderId(),
+                        order.getQuantity()
                 );
+
+                finish(order, "REJECTED", event.getCreatedAt());
+                return;
             }
 
-            portfolio.setLastUpdated(LocalDateTime.now());
-            portfolioRepository.save(portfolio);
-
-            order.setStatus("EXECUTED");
-            orderRepository.save(order);
+            portfolioView.applyDeltas(accountOf(order), Map.of(order.getStockSymbol(), delta));
+            finish(order, "EXECUTED", event.getCreatedAt());
 
             log.info("Order {} executed successfully", order.getOrderId());
 
         } catch (Exception ex) {
             log.error("Order execution failed for {}", order.getOrderId(), ex);
 
-            order.setStatus("REJECTED");
-            orderRepository.save(order);
+            finish(order, "REJECTED", event.getCreatedAt());
 
             throw ex;
         }
     }
+
+    /**
+     * Put a limit order on its book; a SELL first reserves its quantity from
+     * the account's holdings, so fills only have to credit the buyer.
+     */
+    private void book(Order order, Instant acceptedAt) {
+        if (!reserve(order)) {
+            finish(order, "REJECTED", acceptedAt);
+            return;
+        }
+
+        try {
+            orderRepository.markBooked(List.of(order.getOrderId()));
+            matchingEngine.submit(order);
+        } catch (RuntimeException ex) {
+            log.error("Booking failed for {}", order.getOrderId(), ex);
+            release(order);
+            finish(order, "REJECTED", acceptedAt);
+            throw ex;
+        }
+        lifecycleMetrics.finished(order.getStockSymbol(), order.getSide(), BOOKED, acceptedAt);
+        log.info("Order {} submitted to the {} book at {}", order.getOrderId(), order.getStockSymbol(), order.getLimitPrice());
+    }
+
+    /**
+     * Reserve the unfilled quantity of a limit SELL; BUYs need nothing.
+     *
+     * @return false if the holding does not cover it
+     */
+    private boolean reserve(Order order) {
+        if (!"SELL".equals(order.getSide())) {
+            return true;
+        }
+        Reservation reservation = portfolioRepository.reserveHolding(
+                accountOf(order), order.getId(), order.getStockSymbol(), unfilled(order));
+        switch (reservation) {
+            case RESERVED -> portfolioView.applyDeltas(accountOf(order), Map.of(order.getStockSymbol(), -unfilled(order)));
+            case ALREADY_RESERVED -> log.debug("Order {} already holds its reservation", order.getOrderId());
+            case INSUFFICIENT -> log.warn("SELL limit order {} could not reserve its quantity: insufficient holdings (want={})",
+                    order.getOrderId(), unfilled(order));
+        }
+        return reservation != Reservation.INSUFFICIENT;
+    }
+
+    private void release(Order order) {
+        if ("SELL".equals(order.getSide())
+                && portfolioRepository.releaseReservation(accountOf(order), order.getId(), order.getStockSymbol(), unfilled(order))) {
+            portfolioView.applyDeltas(accountOf(order), Map.of(order.getStockSymbol(), unfilled(order)));
+        }
+    }
+
+    private static int unfilled(Order order) {
+        return order.getQuantity() - order.getFilledQuantity();
+    }
+
+    // PARTIALLY_FILLED orders from before bookedAt existed were on a book too
+    private static boolean isBooked(Order order) {
+        return order.getBookedAt() != null || "PARTIALLY_FILLED".equals(order.getStatus());
+    }
+
+    private void finish(Order order, String status, Instant acceptedAt) {
+        order.setStatus(status);
+        long stageStart = System.nanoTime();
+        orderRepository.save(order);
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.STATUS_WRITE, stageStart);
+        lifecycleMetrics.finished(order.getStockSymbol(), order.getSide(), status, acceptedAt);
+        orderStatusHub.publish(order);
+    }
+
+    private static void withTrace(ConsumerRecord<?, ?> record, Runnable action) {
+        String traceId = OrderTrace.fromHeaders(record.headers());
+        if (traceId == null) {
+            action.run();
+            return;
+        }
+        MDC.put(OrderTrace.MDC_KEY, traceId);
+        try {
+            action.run();
+        } finally {
+            MDC.remove(OrderTrace.MDC_KEY);
+        }
+    }
+
+    /**
+     * Batch mode: one {@code $in} read for the orders, one read for the
+     * holdings of every account involved, executions applied in event order
+     * in memory, then the limit SELLs' reservations, one guarded portfolio
+     * update per account and one bulk status write. Accounts whose
+     * reservation or guard failed are executed one by one.
+     */
+    @KafkaListener(
+            topics = "order-placed",
+            groupId = "order-execution-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${trading.kafka.consumer.batch-mode:false}"
+    )
+    public void consumeBatch(List<ConsumerRecord<String, OrderPlacedEvent>> records) {
+
+        log.info("Received batch of {} OrderPlacedEvents", records.size());
+
+        List<OrderPlacedEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, OrderPlacedEvent> record : records) {
+            events.add(record.value());
+            lifecycleMetrics.received(record.value().getCreatedAt());
+        }
+
+        // --- Fetch orders ---
+        long stageStart = System.nanoTime();
+        Map<String, Order> orders = new HashMap<>();
+        orderRepository.findByOrderIdIn(events.stream().map(OrderPlacedEvent::getOrderId).toList())
+                .forEach(order -> orders.put(order.getOrderId(), order));
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.ORDER_LOOKUP, stageStart);
+
+        // --- Load the holdings this batch touches ---
+        Map<String, Set<String>> symbolsByAccount = new HashMap<>();
+        orders.values().forEach(order ->
+                symbolsByAccount.computeIfAbsent(accountOf(order), k -> new HashSet<>()).add(order.getStockSymbol()));
+        Map<String, Map<String, Integer>> holdings = portfolioRepository.findHoldings(symbolsByAccount);
+
+        Map<String, Map<String, Integer>> deltas = new HashMap<>();
+        Map<String, String> statuses = new LinkedHashMap<>();
+        Map<String, Instant> acceptedAt = new HashMap<>();
+        List<Order> toBook = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (OrderPlacedEvent event : events) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                log.error("Order not found for orderId={}, skipping execution", event.getOrderId());
+                continue;
+            }
+
+            // --- Idempotency check, also across duplicates within the batch ---
+            if ("EXECUTED".equals(order.getStatus()) || "REJECTED".equals(order.getStatus())
+                    || ("LIMIT".equals(order.getOrderType()) && isBooked(order))
+                    || !seen.add(order.getOrderId())) {
+                log.warn("Order {} already finalized or booked, status {}", order.getOrderId(), order.getStatus());
+                continue;
+            }
+            if (event.getCreatedAt() != null) {
+                acceptedAt.put(order.getOrderId(), event.getCreatedAt());
+            }
+
+            String accountId = accountOf(order);
+            String symbol = order.getStockSymbol();
+            Map<String, Integer> accountHoldings = holdings.get(accountId);
+            int currentHolding = accountHoldings.getOrDefault(symbol, 0);
+            boolean sell = "SELL".equals(order.getSide());
+
+            if (sell && currentHolding < order.getQuantity()) {
+                log.warn(
+                        "Rejecting SELL order {}: insufficient holdings (have={}, want={})",
+                        order.getOrderId(),
+                        currentHolding,
+                        order.getQuantity()
+                );
+                order.setStatus("REJECTED");
+                statuses.put(order.getOrderId(), "REJECTED");
+                continue;
+            }
+
+            if ("LIMIT".equals(order.getOrderType())) {
+                if (sell) {
+                    // Held back from later orders in the batch; reserved in Mongo before the deltas
+                    accountHoldings.put(symbol, currentHolding - order.getQuantity());
+                }
+                toBook.add(order);
+                continue;
+            }
+
+            int delta = sell ? -order.getQuantity() : order.getQuantity();
+            accountHoldings.put(symbol, currentHolding + delta);
+            deltas.computeIfAbsent(accountId, k -> new HashMap<>()).merge(symbol, delta, Integer::sum);
+
+            order.setStatus("EXECUTED");
+            statuses.put(order.getOrderId(), "EXECUTED");
+        }
+
+        // --- Limit SELLs reserve their quantity before any delta is written.
+        // The pass above already counted it out, so an account whose
+        // reservation fails is released and executed one by one instead ---
+        Set<String> retry = new HashSet<>();
+        List<Order> reserved = new ArrayList<>();
+        for (Order order : toBook) {
+            if (!retry.contains(accountOf(order))) {
+                if (reserve(order)) {
+                    reserved.add(order);
+                } else {
+                    retry.add(accountOf(order));
+                }
+            }
+        }
+        reserved.stream().filter(order -> retry.contains(accountOf(order))).forEach(this::release);
+
+        // --- Portfolio first, as in the single-event path ---
+        if (!deltas.isEmpty()) {
+            stageStart = System.nanoTime();
+            deltas.forEach((accountId, accountDeltas) -> {
+                if (retry.contains(accountId)) {
+                    return;
+                }
+                if (portfolioRepository.applyHoldingDeltas(accountId, accountDeltas)) {
+                    portfolioView.applyDeltas(accountId, accountDeltas);
+                } else {
+                    retry.add(accountId);
+                }
+            });
+            lifecycleMetrics.record(OrderLifecycleMetrics.Stage.PORTFOLIO_WRITE, stageStart);
+        }
+        if (!retry.isEmpty()) {
+            log.warn("Holdings of {} accounts changed under batch of {} events, executing their orders one by one",
+                    retry.size(), events.size());
+            statuses.keySet().removeIf(orderId -> retry.contains(accountOf(orders.get(orderId))));
+            toBook.removeIf(order -> retry.contains(accountOf(order)));
+        }
+
+        stageStart = System.nanoTime();
+        orderRepository.updateStatuses(statuses);
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.STATUS_WRITE, stageStart);
+        statuses.keySet().forEach(orderId -> orderStatusHub.publish(orders.get(orderId)));
+        orderRepository.markBooked(toBook.stream().map(Order::getOrderId).toList());
+        toBook.forEach(matchingEngine::submit);
+
+        statuses.forEach((orderId, status) -> finished(orders.get(orderId), status, acceptedAt));
+        toBook.forEach(order -> finished(order, BOOKED, acceptedAt));
+
+        for (ConsumerRecord<String, OrderPlacedEvent> record : records) {
+            Order order = orders.get(record.value().getOrderId());
+            if (order != null && retry.contains(accountOf(order))) {
+                withTrace(record, () -> execute(record.value()));
+            }
+        }
+
+        log.info("Batch done: {} status updates, {} accounts touched, {} sent to the book, {} accounts retried",
+                statuses.size(), deltas.size(), toBook.size(), retry.size());
+    }
+
+    private static String accountOf(Order order) {
+        return Portfolio.accountOrDefault(order.getAccountId());
+    }
+
+    private void finished(Order order, String outcome, Map<String, Instant> acceptedAt) {
+        lifecycleMetrics.finished(order.getStockSymbol(), order.getSide(), outcome, acceptedAt.get(order.getOrderId()));
+    }
 }
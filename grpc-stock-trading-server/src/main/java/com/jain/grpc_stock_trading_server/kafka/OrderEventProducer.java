@@ -1,11 +1,16 @@
 package com.jain.grpc_stock_trading_server.kafka;
 
 import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import com.jain.grpc_stock_trading_server.tracing.OrderTrace;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -14,12 +19,47 @@ public class OrderEventProducer {
     private static final String TOPIC = "order-placed";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderLifecycleMetrics lifecycleMetrics;
 
-    public void publishOrderPlaced(OrderPlacedEvent event) {
+    public void publishOrderPlaced(OrderPlacedEvent event, String traceId) {
         log.info("Publishing OrderPlacedEvent for orderId={}", event.getOrderId());
 
-        kafkaTemplate.send(TOPIC, event.getOrderId(), event);
+        send(event, traceId);
 
         log.info("OrderPlacedEvent published for orderId={}", event.getOrderId());
     }
+
+    /**
+     * Send a basket of events and flush once, so they leave in as few
+     * producer batches as the partitioning allows.
+     */
+    public void publishOrderPlaced(List<OrderPlacedEvent> events, String traceId) {
+        if (events.isEmpty()) {
+            return;
+        }
+        log.info("Publishing {} OrderPlacedEvents", events.size());
+
+        for (OrderPlacedEvent event : events) {
+            send(event, traceId);
+        }
+        kafkaTemplate.flush();
+
+        log.info("{} OrderPlacedEvents published", events.size());
+    }
+
+    private void send(OrderPlacedEvent event, String traceId) {
+        // Keyed by account: one partition, and so one consumer thread, sees all of an account's orders in order
+        ProducerRecord<String, Object> record = new ProducerRecord<>(TOPIC, event.getAccountId(), event);
+        record.headers().add(OrderTrace.KAFKA_HEADER, OrderTrace.toHeader(traceId));
+
+        long start = System.nanoTime();
+        kafkaTemplate.send(record).whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("Kafka did not acknowledge OrderPlacedEvent for orderId={}: {}",
+                        event.getOrderId(), error.getMessage());
+            } else {
+                lifecycleMetrics.record(OrderLifecycleMetrics.Stage.KAFKA_SEND_ACK, start);
+            }
+        });
+    }
 }
@@ -0,0 +1,80 @@
+package com.jain.grpc_stock_trading_server.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.Instant;
+
+/**
+ * Reads {@link OrderPlacedEvent} from protobuf, falling back to the old JSON
+ * format while producers are being rolled over.
+ * <p>
+ * JSON records are recognised by Spring's type header or a leading
+ * {@code '{'}; a protobuf payload can never start with that byte because
+ * we do not use field 15.
+ */
+public class OrderPlacedEventDeserializer implements Deserializer<OrderPlacedEvent> {
+
+    private final JsonDeserializer<OrderPlacedEvent> jsonDeserializer;
+
+    public OrderPlacedEventDeserializer() {
+        this.jsonDeserializer = new JsonDeserializer<>(OrderPlacedEvent.class);
+        this.jsonDeserializer.addTrustedPackages("com.jain.grpc_stock_trading_server.events");
+    }
+
+    @Override
+    public OrderPlacedEvent deserialize(String topic, byte[] data) {
+        // The JSON fallback needs a headers instance even when there are none
+        return deserialize(topic, new RecordHeaders(), data);
+    }
+
+    @Override
+    public OrderPlacedEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        if (isJson(headers, data)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+
+        try {
+            return fromProto(com.jain.grpc.events.OrderPlacedEvent.parseFrom(data));
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Cannot parse OrderPlacedEvent from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+
+    static OrderPlacedEvent fromProto(com.jain.grpc.events.OrderPlacedEvent proto) {
+        return OrderPlacedEvent.builder()
+                .orderId(proto.getOrderId())
+                .accountId(proto.getAccountId().isEmpty() ? null : proto.getAccountId())
+                .stockSymbol(proto.getStockSymbol())
+                .side(proto.getSide().name())
+                .quantity(proto.getQuantity())
+                .orderType(proto.getOrderType().name())
+                .limitPrice(proto.getLimitPrice())
+                .createdAt(proto.hasCreatedAt()
+                        ? Instant.ofEpochSecond(proto.getCreatedAt().getSeconds(), proto.getCreatedAt().getNanos())
+                        : null)
+                .build();
+    }
+
+    private static boolean isJson(Headers headers, byte[] data) {
+        if (headers != null && headers.lastHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME) != null) {
+            return true;
+        }
+        return data.length > 0 && data[0] == '{';
+    }
+}
@@ -0,0 +1,48 @@
+package com.jain.grpc_stock_trading_server.kafka;
+
+import com.google.protobuf.Timestamp;
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderType;
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes {@link OrderPlacedEvent} as the {@code stocktrading.events.OrderPlacedEvent}
+ * protobuf message.
+ */
+public class OrderPlacedEventSerializer implements Serializer<OrderPlacedEvent> {
+
+    @Override
+    public byte[] serialize(String topic, OrderPlacedEvent event) {
+        if (event == null) {
+            return null;
+        }
+        return toProto(event).toByteArray();
+    }
+
+    static com.jain.grpc.events.OrderPlacedEvent toProto(OrderPlacedEvent event) {
+        com.jain.grpc.events.OrderPlacedEvent.Builder builder =
+                com.jain.grpc.events.OrderPlacedEvent.newBuilder()
+                        .setOrderId(event.getOrderId())
+                        .setStockSymbol(event.getStockSymbol())
+                        .setSide(OrderSide.valueOf(event.getSide()))
+                        .setQuantity(event.getQuantity())
+                        .setLimitPrice(event.getLimitPrice());
+
+        if (event.getAccountId() != null) {
+            builder.setAccountId(event.getAccountId());
+        }
+        if (event.getOrderType() != null) {
+            builder.setOrderType(OrderType.valueOf(event.getOrderType()));
+        }
+        if (event.getCreatedAt() != null) {
+            builder.setCreatedAt(
+                    Timestamp.newBuilder()
+                            .setSeconds(event.getCreatedAt().getEpochSecond())
+                            .setNanos(event.getCreatedAt().getNano())
+                            .build()
+            );
+        }
+        return builder.build();
+    }
+}
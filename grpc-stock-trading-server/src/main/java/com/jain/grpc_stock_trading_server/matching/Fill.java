@@ -0,0 +1,18 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+/**
+ * A fill handed from a matching shard to the {@link OrderFillRecorder}.
+ */
+public record Fill(
+        String stockSymbol,
+        String makerOrderId,
+        String takerOrderId,
+        String makerAccountId,
+        String takerAccountId,
+        boolean takerBuy,
+        double price,
+        int quantity,
+        boolean makerDone,
+        boolean takerDone
+) {
+}
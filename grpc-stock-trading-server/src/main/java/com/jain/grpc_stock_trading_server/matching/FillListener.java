@@ -0,0 +1,16 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+/**
+ * Receives fills from {@link OrderBook#submit}. Called on the book's thread
+ * with primitives only, so the matching loop itself never allocates.
+ */
+@FunctionalInterface
+public interface FillListener {
+
+    /**
+     * @param makerRemaining quantity still resting for the maker after this fill
+     * @param takerRemaining quantity still unfilled for the taker after this fill
+     */
+    void onFill(long makerOrderRef, long takerOrderRef, long priceTicks, int quantity,
+                int makerRemaining, int takerRemaining);
+}
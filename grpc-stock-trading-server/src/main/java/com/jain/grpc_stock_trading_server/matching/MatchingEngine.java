@@ -0,0 +1,235 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Routes limit orders to per-symbol {@link OrderBook}s.
+ * <p>
+ * Symbols are hashed onto a fixed number of shards. Each shard is a single
+ * thread that owns its books outright, so matching needs no locks. Fills
+ * are passed to the {@link OrderFillRecorder} and never written to Mongo
+ * from a shard thread.
+ * <p>
+ * A shard keeps each resting order's id and account in {@link OrderSlots},
+ * keyed by the order's ref on its book, and collects fills in a reused
+ * buffer, so matching an order allocates nothing on the shard thread
+ * beyond the {@link Fill} list handed to the recorder when it trades.
+ * Queueing an order onto its shard still costs one task per order.
+ * <p>
+ * Books live in memory only: on startup the order consumer re-submits every
+ * open limit order, oldest first, before its listeners start (see
+ * {@code OrderEventConsumer#rebuildBooks}).
+ */
+@Slf4j
+@Component
+public class MatchingEngine {
+
+    private final Shard[] shards;
+    private final OrderFillRecorder fillRecorder;
+    private final Counter fillCounter;
+    private final int initialOrdersPerBook;
+    private final int initialLevelsPerBook;
+
+    public MatchingEngine(OrderFillRecorder fillRecorder,
+                          MeterRegistry meterRegistry,
+                          @Value("${trading.matching.shards:0}") int shardCount,
+                          @Value("${trading.matching.initial-orders-per-book:1024}") int initialOrdersPerBook,
+                          @Value("${trading.matching.initial-levels-per-book:64}") int initialLevelsPerBook) {
+        this.fillRecorder = fillRecorder;
+        this.initialOrdersPerBook = initialOrdersPerBook;
+        this.initialLevelsPerBook = initialLevelsPerBook;
+
+        int count = shardCount > 0 ? shardCount : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+
+        this.fillCounter = Counter.builder("matching_engine_fills_total")
+                .description("Fills produced by the order books")
+                .register(meterRegistry);
+        Gauge.builder("matching_engine_resting_orders", this, MatchingEngine::restingOrders)
+                .description("Limit orders resting across all books")
+                .register(meterRegistry);
+
+        log.info("Matching engine started with {} shards", count);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.thread.shutdown();
+        }
+    }
+
+    /**
+     * Queue a limit order for matching on its symbol's shard. Only the
+     * unfilled part of a partially filled order goes back on the book.
+     */
+    public void submit(Order order) {
+        Shard shard = shardFor(order.getStockSymbol());
+        shard.thread.execute(() -> shard.match(order));
+    }
+
+    private Shard shardFor(String stockSymbol) {
+        return shards[Math.floorMod(stockSymbol.hashCode(), shards.length)];
+    }
+
+    private double restingOrders() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.restingOrders;
+        }
+        return total;
+    }
+
+    private final class Shard implements FillListener {
+
+        private final ExecutorService thread;
+
+        // Owned by the shard thread; a resting order's slot is its ref on the book
+        private final Map<String, OrderBook> books = new HashMap<>();
+        private final OrderSlots slots = new OrderSlots(initialOrdersPerBook);
+
+        // The order being matched and its fills, reused across orders
+        private Order taker;
+        private String takerAccount;
+        private boolean takerBuy;
+        private final FillBuffer fills = new FillBuffer();
+
+        private volatile long restingOrders;
+
+        private Shard(int index) {
+            this.thread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "matching-shard-" + index);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private void match(Order order) {
+            if (slots.find(order.getOrderId()) != OrderSlots.NIL) {
+                log.warn("Order {} is already on the book, ignoring redelivery", order.getOrderId());
+                return;
+            }
+
+            OrderBook book = books.get(order.getStockSymbol());
+            if (book == null) {
+                book = new OrderBook(order.getStockSymbol(), initialOrdersPerBook, initialLevelsPerBook);
+                books.put(order.getStockSymbol(), book);
+            }
+
+            taker = order;
+            takerAccount = Portfolio.accountOrDefault(order.getAccountId());
+            takerBuy = "BUY".equals(order.getSide());
+            int takerSlot = slots.acquire(order.getOrderId(), takerAccount);
+
+            int quantity = order.getQuantity() - order.getFilledQuantity();
+            int resting = book.submit(takerSlot, takerBuy,
+                    PriceTicks.toTicks(order.getLimitPrice()), quantity, this);
+
+            if (resting == 0) {
+                slots.release(takerSlot);
+            }
+            restingOrders = slots.inUse();
+
+            int matched = fills.size;
+            if (matched > 0) {
+                fillCounter.increment(matched);
+                log.info("Order {} matched {} fills, {} left resting", order.getOrderId(), matched, resting);
+                // The recorder's thread needs its own copy; only matched orders pay for it
+                fillRecorder.record(fills.drain(order.getStockSymbol()));
+            }
+            taker = null;
+            takerAccount = null;
+        }
+
+        @Override
+        public void onFill(long makerRef, long takerRef, long priceTicks, int quantity,
+                           int makerRemaining, int takerRemaining) {
+            int makerSlot = (int) makerRef;
+            fills.add(slots.orderId(makerSlot), taker.getOrderId(), slots.account(makerSlot), takerAccount,
+                    takerBuy, priceTicks, quantity, makerRemaining == 0, takerRemaining == 0);
+            if (makerRemaining == 0) {
+                slots.release(makerSlot);
+            }
+        }
+    }
+
+    /**
+     * One order's fills as parallel arrays, grown once and reused.
+     */
+    private static final class FillBuffer {
+
+        private String[] makerOrderIds = new String[16];
+        private String[] takerOrderIds = new String[16];
+        private String[] makerAccounts = new String[16];
+        private String[] takerAccounts = new String[16];
+        private boolean[] takerBuys = new boolean[16];
+        private long[] priceTicks = new long[16];
+        private int[] quantities = new int[16];
+        private boolean[] makerDones = new boolean[16];
+        private boolean[] takerDones = new boolean[16];
+        private int size;
+
+        void add(String makerOrderId, String takerOrderId, String makerAccount, String takerAccount,
+                 boolean takerBuy, long ticks, int quantity, boolean makerDone, boolean takerDone) {
+            if (size == quantities.length) {
+                grow();
+            }
+            makerOrderIds[size] = makerOrderId;
+            takerOrderIds[size] = takerOrderId;
+            makerAccounts[size] = makerAccount;
+            takerAccounts[size] = takerAccount;
+            takerBuys[size] = takerBuy;
+            priceTicks[size] = ticks;
+            quantities[size] = quantity;
+            makerDones[size] = makerDone;
+            takerDones[size] = takerDone;
+            size++;
+        }
+
+        List<Fill> drain(String stockSymbol) {
+            List<Fill> drained = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                drained.add(new Fill(stockSymbol, makerOrderIds[i], takerOrderIds[i], makerAccounts[i], takerAccounts[i],
+                        takerBuys[i], PriceTicks.toPrice(priceTicks[i]), quantities[i], makerDones[i], takerDones[i]));
+            }
+            Arrays.fill(makerOrderIds, 0, size, null);
+            Arrays.fill(takerOrderIds, 0, size, null);
+            Arrays.fill(makerAccounts, 0, size, null);
+            Arrays.fill(takerAccounts, 0, size, null);
+            size = 0;
+            return drained;
+        }
+
+        private void grow() {
+            int capacity = quantities.length * 2;
+            makerOrderIds = Arrays.copyOf(makerOrderIds, capacity);
+            takerOrderIds = Arrays.copyOf(takerOrderIds, capacity);
+            makerAccounts = Arrays.copyOf(makerAccounts, capacity);
+            takerAccounts = Arrays.copyOf(takerAccounts, capacity);
+            takerBuys = Arrays.copyOf(takerBuys, capacity);
+            priceTicks = Arrays.copyOf(priceTicks, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            makerDones = Arrays.copyOf(makerDones, capacity);
+            takerDones = Arrays.copyOf(takerDones, capacity);
+        }
+    }
+}
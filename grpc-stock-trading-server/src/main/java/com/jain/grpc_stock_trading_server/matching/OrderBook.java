@@ -0,0 +1,92 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+/**
+ * Price-time priority limit order book for one symbol.
+ * <p>
+ * Not thread-safe: each book is owned by exactly one matching shard thread.
+ * Prices are fixed-point ticks (see {@link PriceTicks}) and orders are
+ * identified by caller-assigned {@code long} refs, so submitting and
+ * matching an order allocates nothing once the pool has warmed up.
+ */
+public final class OrderBook {
+
+    private final String stockSymbol;
+    private final OrderPool pool;
+    private final PriceLevels bids;
+    private final PriceLevels asks;
+
+    public OrderBook(String stockSymbol, int initialOrders, int initialLevels) {
+        this.stockSymbol = stockSymbol;
+        this.pool = new OrderPool(initialOrders);
+        this.bids = new PriceLevels(true, initialLevels);
+        this.asks = new PriceLevels(false, initialLevels);
+    }
+
+    public String getStockSymbol() {
+        return stockSymbol;
+    }
+
+    /**
+     * Match a limit order against the opposite side, then rest whatever is left.
+     *
+     * @return the quantity left resting on the book (0 if fully filled)
+     */
+    public int submit(long orderRef, boolean buy, long limitTicks, int quantity, FillListener listener) {
+        PriceLevels opposite = buy ? asks : bids;
+        int remaining = quantity;
+
+        while (remaining > 0 && !opposite.isEmpty()) {
+            long levelPrice = opposite.bestPrice();
+            if (buy ? levelPrice > limitTicks : levelPrice < limitTicks) {
+                break;
+            }
+
+            int node = opposite.bestHead();
+            while (node != OrderPool.NIL && remaining > 0) {
+                int makerRemaining = pool.remaining[node];
+                int fill = Math.min(makerRemaining, remaining);
+
+                makerRemaining -= fill;
+                remaining -= fill;
+                pool.remaining[node] = makerRemaining;
+
+                listener.onFill(pool.orderRefs[node], orderRef, levelPrice, fill, makerRemaining, remaining);
+
+                if (makerRemaining == 0) {
+                    int next = pool.next[node];
+                    pool.release(node);
+                    node = next;
+                }
+            }
+            opposite.updateBestHead(node);
+        }
+
+        if (remaining > 0) {
+            int node = pool.acquire(orderRef, remaining);
+            (buy ? bids : asks).append(limitTicks, node, pool);
+        }
+        return remaining;
+    }
+
+    /**
+     * @return best bid in ticks, or {@link Long#MIN_VALUE} if there are no bids
+     */
+    public long bestBid() {
+        return bids.isEmpty() ? Long.MIN_VALUE : bids.bestPrice();
+    }
+
+    /**
+     * @return best ask in ticks, or {@link Long#MAX_VALUE} if there are no asks
+     */
+    public long bestAsk() {
+        return asks.isEmpty() ? Long.MAX_VALUE : asks.bestPrice();
+    }
+
+    public int restingOrders() {
+        return pool.inUse();
+    }
+
+    public int priceLevels() {
+        return bids.size() + asks.size();
+    }
+}
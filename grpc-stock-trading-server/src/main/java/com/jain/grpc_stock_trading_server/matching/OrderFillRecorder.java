@@ -0,0 +1,294 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Writes fills back to the {@code orders} collection off the matching
+ * threads, one ordered bulk write per submitted order.
+ * <p>
+ * The book has already moved on when a fill reaches here, so a write that
+ * fails is not dropped: fills stay queued in order and are retried with
+ * the next batch or every {@code trading.matching.settle-retry-seconds}.
+ * The write is ordered, so when it fails part-way only the updates from
+ * the failed one on are sent again and no {@code $inc} is applied twice
+ * ({@code order_fill_unrecorded} counts the queued fills).
+ * <p>
+ * Each fill then credits its quantity to the buyer's account, with one
+ * unguarded bulk {@code $inc} per batch of fills. The trade has already
+ * happened on the book, so it cannot be rejected here; the seller's side
+ * was reserved out of their holdings when the limit SELL was booked, and
+ * the reservation of a SELL filled completely is dropped afterwards.
+ * Credits that fail to apply are kept, merged per account and symbol, and
+ * retried with the next batch or every {@code trading.matching.settle-retry-seconds},
+ * whichever comes first ({@code order_fill_unsettled_accounts} counts them).
+ * Orders that the fills completed, and orders with an open
+ * {@code WatchOrder} stream, are read back after the write in one query:
+ * completed ones are timed as {@code EXECUTED} in
+ * {@code order_accept_to_final_seconds}, watched ones pushed to their
+ * watchers.
+ */
+@Slf4j
+@Component
+public class OrderFillRecorder {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderStatusHub orderStatusHub;
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioView portfolioView;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final long settleRetrySeconds;
+
+    // Owned by the writer thread: fills whose order updates are not all written yet,
+    // oldest first; the first one's maker update may already be in
+    private final List<Fill> unrecorded = new ArrayList<>();
+    private boolean firstMakerRecorded;
+    private volatile int unrecordedFills;
+
+    // Owned by the writer thread: buyer credits not yet applied to the portfolio
+    private final Map<String, Map<String, Integer>> unsettled = new HashMap<>();
+    private volatile int unsettledAccounts;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-fill-recorder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OrderFillRecorder(MongoTemplate mongoTemplate, OrderStatusHub orderStatusHub,
+                             PortfolioRepository portfolioRepository, PortfolioView portfolioView,
+                             OrderLifecycleMetrics lifecycleMetrics, MeterRegistry meterRegistry,
+                             @Value("${trading.matching.settle-retry-seconds:5}") long settleRetrySeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderStatusHub = orderStatusHub;
+        this.portfolioRepository = portfolioRepository;
+        this.portfolioView = portfolioView;
+        this.lifecycleMetrics = lifecycleMetrics;
+        this.settleRetrySeconds = settleRetrySeconds;
+
+        Gauge.builder("order_fill_unrecorded", this, r -> r.unrecordedFills)
+                .description("Fills waiting to be written to their orders")
+                .register(meterRegistry);
+        Gauge.builder("order_fill_unsettled_accounts", this, r -> r.unsettledAccounts)
+                .description("Accounts with fill credits waiting to be applied to their portfolio")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (settleRetrySeconds > 0) {
+            writer.scheduleWithFixedDelay(() -> {
+                recordPending();
+                settlePending();
+            }, settleRetrySeconds, settleRetrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Runs after every fill already queued
+        writer.execute(() -> {
+            recordPending();
+            settlePending();
+            if (!unrecorded.isEmpty()) {
+                log.error("Shutting down with {} fills not written to their orders: {}", unrecorded.size(), unrecorded);
+            }
+            if (!unsettled.isEmpty()) {
+                log.error("Shutting down with unsettled fill credits: {}", unsettled);
+            }
+        });
+        writer.shutdown();
+    }
+
+    public void record(List<Fill> fills) {
+        if (!fills.isEmpty()) {
+            writer.execute(() -> write(fills));
+        }
+    }
+
+    private void write(List<Fill> fills) {
+        unrecorded.addAll(fills);
+        recordPending();
+    }
+
+    /**
+     * Write every queued fill in one ordered bulk write, maker then taker
+     * update per fill, then settle and read back the fills that made it.
+     */
+    private void recordPending() {
+        if (unrecorded.isEmpty()) {
+            return;
+        }
+        List<Fill> pending = List.copyOf(unrecorded);
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+
+        // Op i of the write is update (i + skipped) of maker, taker, maker, taker...
+        int skipped = firstMakerRecorded ? 1 : 0;
+        for (int i = 0; i < pending.size(); i++) {
+            Fill fill = pending.get(i);
+            if (i > 0 || !firstMakerRecorded) {
+                ops.updateOne(byOrderId(fill.makerOrderId()), fillUpdate(fill, fill.makerDone()));
+            }
+            ops.updateOne(byOrderId(fill.takerOrderId()), fillUpdate(fill, fill.takerDone()));
+        }
+
+        int applied = 2 * pending.size() - skipped;
+        try {
+            ops.execute();
+            log.debug("Recorded {} fills for {}", pending.size(), pending.get(0).stockSymbol());
+        } catch (BulkOperationException e) {
+            // Ordered: everything before the first failed update was applied, nothing after it.
+            // Without write errors (a write concern error) every update was applied.
+            if (!e.getErrors().isEmpty()) {
+                applied = e.getErrors().get(0).getIndex();
+            }
+            log.error("Failed to record fills for {}, {} updates applied, retrying the rest: {}",
+                    pending.get(0).stockSymbol(), applied, e.getMessage(), e);
+        } catch (Exception e) {
+            applied = 0;
+            log.error("Failed to record {} fills, retrying: {}", pending.size(), e.getMessage(), e);
+        }
+
+        int updates = applied + skipped;
+        List<Fill> recorded = pending.subList(0, updates / 2);
+        unrecorded.subList(0, recorded.size()).clear();
+        firstMakerRecorded = updates % 2 == 1;
+        unrecordedFills = unrecorded.size();
+
+        if (!recorded.isEmpty()) {
+            settle(recorded);
+            readBack(recorded);
+        }
+    }
+
+    private void settle(List<Fill> fills) {
+        for (Fill fill : fills) {
+            String buyer = fill.takerBuy() ? fill.takerAccountId() : fill.makerAccountId();
+            unsettled.computeIfAbsent(buyer, k -> new HashMap<>()).merge(fill.stockSymbol(), fill.quantity(), Integer::sum);
+        }
+        settlePending();
+    }
+
+    /**
+     * Apply every pending credit in one bulk write. Accounts whose update
+     * failed stay pending; an error before the write reached Mongo keeps
+     * them all.
+     */
+    private void settlePending() {
+        if (unsettled.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Integer>> pending = new HashMap<>();
+        unsettled.forEach((accountId, deltas) -> pending.put(accountId, Map.copyOf(deltas)));
+
+        Set<String> failed;
+        try {
+            failed = portfolioRepository.incHoldings(pending);
+        } catch (Exception e) {
+            log.error("Failed to settle fills for {} accounts, retrying: {}", pending.size(), e.getMessage(), e);
+            unsettledAccounts = unsettled.size();
+            return;
+        }
+
+        pending.forEach((accountId, deltas) -> {
+            if (!failed.contains(accountId)) {
+                unsettled.remove(accountId);
+                portfolioView.applyDeltas(accountId, deltas);
+            }
+        });
+        if (!failed.isEmpty()) {
+            log.warn("Failed to settle fills for accounts {}, retrying", failed);
+        }
+        unsettledAccounts = unsettled.size();
+    }
+
+    private void readBack(List<Fill> fills) {
+        Set<String> done = new HashSet<>();
+        Set<String> watched = new HashSet<>();
+        for (Fill fill : fills) {
+            if (fill.makerDone()) {
+                done.add(fill.makerOrderId());
+            }
+            if (fill.takerDone()) {
+                done.add(fill.takerOrderId());
+            }
+            if (orderStatusHub.isWatched(fill.makerOrderId())) {
+                watched.add(fill.makerOrderId());
+            }
+            if (orderStatusHub.isWatched(fill.takerOrderId())) {
+                watched.add(fill.takerOrderId());
+            }
+        }
+        if (done.isEmpty() && watched.isEmpty()) {
+            return;
+        }
+
+        Set<String> orderIds = new HashSet<>(done);
+        orderIds.addAll(watched);
+        Map<String, List<ObjectId>> soldOut = new HashMap<>();
+        for (Order order : mongoTemplate.find(Query.query(where("orderId").in(orderIds)), Order.class)) {
+            if (done.contains(order.getOrderId())) {
+                if ("SELL".equals(order.getSide())) {
+                    soldOut.computeIfAbsent(Portfolio.accountOrDefault(order.getAccountId()), k -> new ArrayList<>())
+                            .add(order.getId());
+                }
+                if (order.getCreatedAt() != null) {
+                    // Order.createdAt is the same moment as the event's createdAt, in local time
+                    lifecycleMetrics.finished(order.getStockSymbol(), order.getSide(), "EXECUTED",
+                            order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+                }
+            }
+            if (watched.contains(order.getOrderId())) {
+                orderStatusHub.publish(order);
+            }
+        }
+
+        try {
+            portfolioRepository.clearReservations(soldOut);
+        } catch (Exception e) {
+            // Only bookkeeping: the reserved quantity already left the holding
+            log.warn("Failed to clear filled SELL reservations in {} accounts: {}", soldOut.size(), e.getMessage());
+        }
+    }
+
+    private static Query byOrderId(String orderId) {
+        return Query.query(where("orderId").is(orderId));
+    }
+
+    private static Update fillUpdate(Fill fill, boolean done) {
+        return new Update()
+                .inc("filledQuantity", fill.quantity())
+                .inc("filledNotional", fill.price() * fill.quantity())
+                .set("status", done ? "EXECUTED" : "PARTIALLY_FILLED");
+    }
+}
@@ -0,0 +1,65 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import java.util.Arrays;
+
+/**
+ * Resting order nodes stored as parallel primitive arrays.
+ * <p>
+ * A node is an index; released indexes go on a free list threaded through
+ * {@code next}, so steady-state matching reuses slots instead of allocating.
+ * The arrays only grow (doubling) when the book holds more orders than ever
+ * before.
+ */
+final class OrderPool {
+
+    static final int NIL = -1;
+
+    long[] orderRefs;
+    int[] remaining;
+    int[] next;
+
+    private int highWater;
+    private int freeHead = NIL;
+    private int inUse;
+
+    OrderPool(int initialCapacity) {
+        orderRefs = new long[initialCapacity];
+        remaining = new int[initialCapacity];
+        next = new int[initialCapacity];
+    }
+
+    int acquire(long orderRef, int quantity) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = next[node];
+        } else {
+            if (highWater == orderRefs.length) {
+                grow();
+            }
+            node = highWater++;
+        }
+        orderRefs[node] = orderRef;
+        remaining[node] = quantity;
+        next[node] = NIL;
+        inUse++;
+        return node;
+    }
+
+    void release(int node) {
+        next[node] = freeHead;
+        freeHead = node;
+        inUse--;
+    }
+
+    int inUse() {
+        return inUse;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, orderRefs.length * 2);
+        orderRefs = Arrays.copyOf(orderRefs, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+}
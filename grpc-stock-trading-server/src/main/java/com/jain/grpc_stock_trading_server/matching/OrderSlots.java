@@ -0,0 +1,143 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import java.util.Arrays;
+
+/**
+ * Order id and account of every order resting on one shard's books, stored
+ * as parallel arrays indexed by slot. The slot doubles as the order's ref
+ * in its {@link OrderBook}.
+ * <p>
+ * Released slots are reused through a free list, as in {@link OrderPool},
+ * and order ids are found through an open-addressing index of slots, so
+ * booking and removing an order allocates nothing once the arrays have
+ * grown to the shard's largest book.
+ */
+final class OrderSlots {
+
+    static final int NIL = -1;
+
+    private String[] orderIds;
+    private String[] accounts;
+    private int[] nextFree;
+
+    // Linear probing over slot + 1; 0 marks an empty bucket. At most half full.
+    private int[] index;
+
+    private int highWater;
+    private int freeHead = NIL;
+    private int inUse;
+
+    OrderSlots(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        orderIds = new String[capacity];
+        accounts = new String[capacity];
+        nextFree = new int[capacity];
+        index = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+    }
+
+    /**
+     * @return the slot of a resting order, or {@link #NIL}
+     */
+    int find(String orderId) {
+        int mask = index.length - 1;
+        for (int bucket = bucket(orderId, mask); index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (orderIds[slot].equals(orderId)) {
+                return slot;
+            }
+        }
+        return NIL;
+    }
+
+    int acquire(String orderId, String accountId) {
+        int slot;
+        if (freeHead != NIL) {
+            slot = freeHead;
+            freeHead = nextFree[slot];
+        } else {
+            if (highWater == orderIds.length) {
+                grow();
+            }
+            slot = highWater++;
+        }
+        orderIds[slot] = orderId;
+        accounts[slot] = accountId;
+        inUse++;
+
+        int mask = index.length - 1;
+        int bucket = bucket(orderId, mask);
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+        return slot;
+    }
+
+    void release(int slot) {
+        unindex(slot);
+        orderIds[slot] = null;
+        accounts[slot] = null;
+        nextFree[slot] = freeHead;
+        freeHead = slot;
+        inUse--;
+    }
+
+    String orderId(int slot) {
+        return orderIds[slot];
+    }
+
+    String account(int slot) {
+        return accounts[slot];
+    }
+
+    int inUse() {
+        return inUse;
+    }
+
+    // Backward-shift deletion, so lookups never need tombstones
+    private void unindex(int slot) {
+        int mask = index.length - 1;
+        int hole = bucket(orderIds[slot], mask);
+        while (index[hole] != slot + 1) {
+            hole = (hole + 1) & mask;
+        }
+        index[hole] = 0;
+
+        for (int bucket = (hole + 1) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int home = bucket(orderIds[index[bucket] - 1], mask);
+            // Move the entry back unless its home lies cyclically in (hole, bucket]
+            boolean stays = hole <= bucket
+                    ? hole < home && home <= bucket
+                    : hole < home || home <= bucket;
+            if (!stays) {
+                index[hole] = index[bucket];
+                index[bucket] = 0;
+                hole = bucket;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = orderIds.length * 2;
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        accounts = Arrays.copyOf(accounts, capacity);
+        nextFree = Arrays.copyOf(nextFree, capacity);
+
+        index = new int[index.length * 2];
+        int mask = index.length - 1;
+        for (int slot = 0; slot < highWater; slot++) {
+            if (orderIds[slot] != null) {
+                int bucket = bucket(orderIds[slot], mask);
+                while (index[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                index[bucket] = slot + 1;
+            }
+        }
+    }
+
+    private static int bucket(String orderId, int mask) {
+        int h = orderId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
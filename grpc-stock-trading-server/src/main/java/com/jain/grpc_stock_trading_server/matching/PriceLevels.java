@@ -0,0 +1,96 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import java.util.Arrays;
+
+/**
+ * One side of the book: price levels in a sorted array, each holding a FIFO
+ * list of {@link OrderPool} nodes.
+ * <p>
+ * Levels are kept in ascending order of a side-adjusted key (price for bids,
+ * negated price for asks) so the best level is always the last element.
+ * Most activity happens near the top of the book, so inserting or removing
+ * a level rarely shifts more than a few elements.
+ */
+final class PriceLevels {
+
+    private final boolean bid;
+
+    private long[] keys;
+    private int[] heads;
+    private int[] tails;
+    private int size;
+
+    PriceLevels(boolean bid, int initialCapacity) {
+        this.bid = bid;
+        this.keys = new long[initialCapacity];
+        this.heads = new int[initialCapacity];
+        this.tails = new int[initialCapacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bestPrice() {
+        return toPrice(keys[size - 1]);
+    }
+
+    int bestHead() {
+        return heads[size - 1];
+    }
+
+    /**
+     * Point the best level at its new first node, dropping the level once empty.
+     */
+    void updateBestHead(int node) {
+        if (node == OrderPool.NIL) {
+            size--;
+        } else {
+            heads[size - 1] = node;
+        }
+    }
+
+    /**
+     * Append a node to the back of the queue at its price, creating the level if needed.
+     */
+    void append(long priceTicks, int node, OrderPool pool) {
+        long key = bid ? priceTicks : -priceTicks;
+
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            pool.next[tails[index]] = node;
+            tails[index] = node;
+            return;
+        }
+
+        int insertAt = -index - 1;
+        if (size == keys.length) {
+            grow();
+        }
+        int tailCount = size - insertAt;
+        if (tailCount > 0) {
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, tailCount);
+            System.arraycopy(heads, insertAt, heads, insertAt + 1, tailCount);
+            System.arraycopy(tails, insertAt, tails, insertAt + 1, tailCount);
+        }
+        keys[insertAt] = key;
+        heads[insertAt] = node;
+        tails[insertAt] = node;
+        size++;
+    }
+
+    private long toPrice(long key) {
+        return bid ? key : -key;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        heads = Arrays.copyOf(heads, capacity);
+        tails = Arrays.copyOf(tails, capacity);
+    }
+}
@@ -0,0 +1,20 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+/**
+ * Fixed-point prices used inside the order book: 1 tick = 0.0001.
+ */
+public final class PriceTicks {
+
+    public static final long SCALE = 10_000L;
+
+    private PriceTicks() {
+    }
+
+    public static long toTicks(double price) {
+        return Math.round(price * SCALE);
+    }
+
+    public static double toPrice(long ticks) {
+        return (double) ticks / SCALE;
+    }
+}
@@ -4,6 +4,13 @@ import com.jain.grpc_stock_trading_server.entity.Order;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface OrderRepository extends MongoRepository<Order, ObjectId> {
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderRepository extends MongoRepository<Order, ObjectId>, OrderRepositoryCustom {
     Order findByOrderId(String orderId);
+
+    List<Order> findByOrderIdIn(Collection<String> orderIds);
+
+    List<Order> findByOrderTypeAndStatusInOrderByCreatedAtAsc(String orderType, Collection<String> statuses);
 }
@@ -0,0 +1,31 @@
+package com.jain.grpc_stock_trading_server.repository;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Set the status of many orders with one unordered bulk write.
+     *
+     * @param statusByOrderId new status keyed by orderId
+     */
+    void updateStatuses(Map<String, String> statusByOrderId);
+
+    /**
+     * Record that limit orders were put on the book, so a redelivered
+     * event does not book them again. Orders already marked keep their time.
+     */
+    void markBooked(Collection<String> orderIds);
+
+    /**
+     * Insert new orders with one unordered bulk write. A failed document
+     * does not stop the others.
+     *
+     * @return Mongo error code keyed by orderId for each order that was not inserted
+     */
+    Map<String, Integer> insertAll(List<Order> orders);
+}
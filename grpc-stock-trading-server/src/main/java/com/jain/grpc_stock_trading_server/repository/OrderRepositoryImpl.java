@@ -0,0 +1,70 @@
+package com.jain.grpc_stock_trading_server.repository;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void updateStatuses(Map<String, String> statusByOrderId) {
+        if (statusByOrderId.isEmpty()) {
+            return;
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        statusByOrderId.forEach((orderId, status) ->
+                ops.updateOne(Query.query(where("orderId").is(orderId)), Update.update("status", status)));
+        ops.execute();
+    }
+
+    @Override
+    public void markBooked(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        mongoTemplate.updateMulti(
+                Query.query(where("orderId").in(orderIds).and("bookedAt").exists(false)),
+                Update.update("bookedAt", LocalDateTime.now()),
+                Order.class
+        );
+    }
+
+    @Override
+    public Map<String, Integer> insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                    .insert(orders)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            // Error indexes refer to positions in the submitted list
+            Map<String, Integer> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.put(orders.get(error.getIndex()).getOrderId(), error.getCode());
+            }
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.jain.grpc_stock_trading_server.repository;
+
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-field holding updates, so executions never rewrite the whole
+ * portfolio document and concurrent consumers cannot lose updates. There
+ * is one portfolio document per account.
+ */
+public interface PortfolioRepositoryCustom {
+
+    enum Reservation {
+        /** The quantity was taken out of the holding now */
+        RESERVED,
+        /** An earlier attempt already reserved it; nothing changed */
+        ALREADY_RESERVED,
+        /** The holding does not cover the quantity; nothing changed */
+        INSUFFICIENT
+    }
+
+    /**
+     * Current quantity held, 0 if none.
+     */
+    int findHolding(String accountId, String stockSymbol);
+
+    /**
+     * {@code $inc} the holding, creating the account's portfolio on first use.
+     */
+    void addHolding(String accountId, String stockSymbol, int quantity);
+
+    /**
+     * {@code $inc} the holding down, only if it covers the quantity.
+     * The check is part of the update filter, so it is atomic.
+     *
+     * @return false if the holding was insufficient and nothing changed
+     */
+    boolean removeHolding(String accountId, String stockSymbol, int quantity);
+
+    /**
+     * Current quantities for several accounts and symbols in one read;
+     * missing symbols map to 0.
+     */
+    Map<String, Map<String, Integer>> findHoldings(Map<String, ? extends Collection<String>> symbolsByAccount);
+
+    /**
+     * Apply net per-symbol deltas in a single update. Every negative delta
+     * is guarded in the filter like {@link #removeHolding}.
+     *
+     * @return false if a guard failed and nothing changed
+     */
+    boolean applyHoldingDeltas(String accountId, Map<String, Integer> deltas);
+
+    /**
+     * Take a limit SELL's quantity out of the holding while it rests on the
+     * book, guarded like {@link #removeHolding}. The reservation is recorded
+     * under the order's {@code _id} in the same update, so booking the order
+     * again after a redelivery or restart does not take it twice.
+     */
+    Reservation reserveHolding(String accountId, ObjectId orderId, String stockSymbol, int quantity);
+
+    /**
+     * Put the unfilled quantity of a reserved SELL back into the holding
+     * and drop the reservation, for an order taken off the book.
+     *
+     * @return false if the order had no reservation and nothing changed
+     */
+    boolean releaseReservation(String accountId, ObjectId orderId, String stockSymbol, int unfilled);
+
+    /**
+     * Drop the reservations of SELLs the book has filled completely; their
+     * quantity has already left the holding.
+     */
+    void clearReservations(Map<String, ? extends Collection<ObjectId>> orderIdsByAccount);
+
+    /**
+     * Unguarded {@code $inc} of several accounts' holdings in one bulk write,
+     * for fills that have already happened on the book. The write is
+     * unordered, so one account's failure does not stop the others.
+     *
+     * @return the accounts whose update failed and was not applied
+     */
+    Set<String> incHoldings(Map<String, Map<String, Integer>> deltasByAccount);
+
+    /**
+     * Assign the portfolio written before accounts existed, if any, to the given account.
+     *
+     * @return 1 if there was one, else 0
+     */
+    long claimUnassigned(String accountId);
+}
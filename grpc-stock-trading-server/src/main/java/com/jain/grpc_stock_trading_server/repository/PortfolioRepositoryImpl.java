@@ -0,0 +1,228 @@
+package com.jain.grpc_stock_trading_server.repository;
+
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * One portfolio document per account, addressed by {@code accountId}.
+ * Upserts on an equality filter create the account's document with it.
+ */
+@RequiredArgsConstructor
+public class PortfolioRepositoryImpl implements PortfolioRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public int findHolding(String accountId, String stockSymbol) {
+        Query query = byAccount(accountId);
+        query.fields().include(holdingField(stockSymbol));
+
+        Portfolio portfolio = mongoTemplate.findOne(query, Portfolio.class);
+        if (portfolio == null || portfolio.getHoldings() == null) {
+            return 0;
+        }
+        return portfolio.getHoldings().getOrDefault(stockSymbol, 0);
+    }
+
+    @Override
+    public void addHolding(String accountId, String stockSymbol, int quantity) {
+        mongoTemplate.upsert(
+                byAccount(accountId),
+                new Update()
+                        .inc(holdingField(stockSymbol), quantity)
+                        .set("lastUpdated", LocalDateTime.now()),
+                Portfolio.class
+        );
+    }
+
+    @Override
+    public boolean removeHolding(String accountId, String stockSymbol, int quantity) {
+        return mongoTemplate.updateFirst(
+                Query.query(where("accountId").is(accountId).and(holdingField(stockSymbol)).gte(quantity)),
+                new Update()
+                        .inc(holdingField(stockSymbol), -quantity)
+                        .set("lastUpdated", LocalDateTime.now()),
+                Portfolio.class
+        ).getModifiedCount() == 1;
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> findHoldings(Map<String, ? extends Collection<String>> symbolsByAccount) {
+        Map<String, Map<String, Integer>> holdings = new HashMap<>();
+        if (symbolsByAccount.isEmpty()) {
+            return holdings;
+        }
+
+        Query query = Query.query(where("accountId").in(symbolsByAccount.keySet()));
+        query.fields().include("accountId");
+        symbolsByAccount.values().forEach(symbols -> symbols.forEach(symbol -> query.fields().include(holdingField(symbol))));
+
+        Map<String, Portfolio> portfolios = new HashMap<>();
+        mongoTemplate.find(query, Portfolio.class).forEach(p -> portfolios.put(p.getAccountId(), p));
+
+        symbolsByAccount.forEach((accountId, symbols) -> {
+            Portfolio portfolio = portfolios.get(accountId);
+            Map<String, Integer> account = new HashMap<>();
+            for (String symbol : symbols) {
+                account.put(symbol, portfolio == null || portfolio.getHoldings() == null
+                        ? 0
+                        : portfolio.getHoldings().getOrDefault(symbol, 0));
+            }
+            holdings.put(accountId, account);
+        });
+        return holdings;
+    }
+
+    @Override
+    public boolean applyHoldingDeltas(String accountId, Map<String, Integer> deltas) {
+        List<Criteria> guards = new ArrayList<>();
+        Update update = new Update().set("lastUpdated", LocalDateTime.now());
+
+        for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+            if (delta.getValue() == 0) {
+                continue;
+            }
+            update.inc(holdingField(delta.getKey()), delta.getValue());
+            if (delta.getValue() < 0) {
+                guards.add(where(holdingField(delta.getKey())).gte(-delta.getValue()));
+            }
+        }
+
+        // Upserting a guarded query would create a second portfolio on a miss
+        if (!guards.isEmpty()) {
+            guards.add(0, where("accountId").is(accountId));
+            Query query = Query.query(new Criteria().andOperator(guards));
+            return mongoTemplate.updateFirst(query, update, Portfolio.class).getModifiedCount() == 1;
+        }
+        mongoTemplate.upsert(byAccount(accountId), update, Portfolio.class);
+        return true;
+    }
+
+    @Override
+    public Reservation reserveHolding(String accountId, ObjectId orderId, String stockSymbol, int quantity) {
+        String reservation = reservationField(orderId);
+        boolean reserved = mongoTemplate.updateFirst(
+                Query.query(where("accountId").is(accountId)
+                        .and(holdingField(stockSymbol)).gte(quantity)
+                        .and(reservation).exists(false)),
+                new Update()
+                        .inc(holdingField(stockSymbol), -quantity)
+                        .set(reservation, quantity)
+                        .set("lastUpdated", LocalDateTime.now()),
+                Portfolio.class
+        ).getModifiedCount() == 1;
+        if (reserved) {
+            return Reservation.RESERVED;
+        }
+        return mongoTemplate.exists(Query.query(where("accountId").is(accountId).and(reservation).exists(true)), Portfolio.class)
+                ? Reservation.ALREADY_RESERVED
+                : Reservation.INSUFFICIENT;
+    }
+
+    @Override
+    public boolean releaseReservation(String accountId, ObjectId orderId, String stockSymbol, int unfilled) {
+        String reservation = reservationField(orderId);
+        return mongoTemplate.updateFirst(
+                Query.query(where("accountId").is(accountId).and(reservation).exists(true)),
+                new Update()
+                        .inc(holdingField(stockSymbol), unfilled)
+                        .unset(reservation)
+                        .set("lastUpdated", LocalDateTime.now()),
+                Portfolio.class
+        ).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void clearReservations(Map<String, ? extends Collection<ObjectId>> orderIdsByAccount) {
+        if (orderIdsByAccount.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Portfolio.class);
+        orderIdsByAccount.forEach((accountId, orderIds) -> {
+            Update update = new Update();
+            orderIds.forEach(orderId -> update.unset(reservationField(orderId)));
+            ops.updateOne(byAccount(accountId), update);
+        });
+        ops.execute();
+    }
+
+    @Override
+    public Set<String> incHoldings(Map<String, Map<String, Integer>> deltasByAccount) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Portfolio.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<String> updated = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, Integer>> account : deltasByAccount.entrySet()) {
+            Update update = new Update().set("lastUpdated", now);
+            boolean changed = false;
+            for (Map.Entry<String, Integer> delta : account.getValue().entrySet()) {
+                if (delta.getValue() != 0) {
+                    update.inc(holdingField(delta.getKey()), delta.getValue());
+                    changed = true;
+                }
+            }
+            if (changed) {
+                ops.upsert(byAccount(account.getKey()), update);
+                updated.add(account.getKey());
+            }
+        }
+
+        if (updated.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            ops.execute();
+        } catch (BulkOperationException e) {
+            // Error indexes follow the order the upserts were added in
+            Set<String> failed = new HashSet<>();
+            e.getErrors().forEach(error -> failed.add(updated.get(error.getIndex())));
+            return failed;
+        }
+        return Set.of();
+    }
+
+    // There was only ever one portfolio without an account
+    @Override
+    public long claimUnassigned(String accountId) {
+        return mongoTemplate.updateFirst(
+                Query.query(where("accountId").exists(false)),
+                new Update().set("accountId", accountId),
+                Portfolio.class
+        ).getModifiedCount();
+    }
+
+    private static Query byAccount(String accountId) {
+        return Query.query(where("accountId").is(accountId));
+    }
+
+    private static String reservationField(ObjectId orderId) {
+        return "reserved." + orderId.toHexString();
+    }
+
+    private static String holdingField(String stockSymbol) {
+        // Requests are validated on the way in; this keeps a bad symbol from ever becoming a path
+        if (!Stock.isValidSymbol(stockSymbol)) {
+            throw new IllegalArgumentException("Invalid stock symbol: " + stockSymbol);
+        }
+        return "holdings." + stockSymbol;
+    }
+}
@@ -0,0 +1,13 @@
+package com.jain.grpc_stock_trading_server.repository;
+
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link StockRepository} for the read RPCs.
+ */
+public interface ReactiveStockRepository extends ReactiveMongoRepository<Stock, ObjectId> {
+    Mono<Stock> findByStockSymbol(String stockSymbol);
+}
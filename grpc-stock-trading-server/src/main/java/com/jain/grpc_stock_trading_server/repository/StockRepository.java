@@ -4,6 +4,11 @@ import com.jain.grpc_stock_trading_server.entity.Stock;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface StockRepository extends MongoRepository<Stock, ObjectId> {
     Stock findByStockSymbol(String stockSymbol);
+
+    List<Stock> findByStockSymbolIn(Collection<String> stockSymbols);
 }
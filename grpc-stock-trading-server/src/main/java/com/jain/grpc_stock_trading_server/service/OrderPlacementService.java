@@ -0,0 +1,224 @@
+package com.jain.grpc_stock_trading_server.service;
+
+import com.jain.grpc.OrderRejectReason;
+import com.jain.grpc.OrderStatus;
+import com.jain.grpc.OrderType;
+import com.jain.grpc.PlaceOrderRequest;
+import com.jain.grpc.PlaceOrderResponse;
+import com.jain.grpc_stock_trading_server.cache.RecentOrderIdFilter;
+import com.jain.grpc_stock_trading_server.cache.StockCache;
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.kafka.OrderEventProducer;
+import com.jain.grpc_stock_trading_server.repository.OrderRepository;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import com.jain.grpc_stock_trading_server.tracing.OrderTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Places baskets of orders with a fixed number of round trips regardless
+ * of basket size: one stock cache lookup, one bulk insert and one producer
+ * flush. Duplicate orderIds are caught by the {@link RecentOrderIdFilter}
+ * or by the unique index during the insert. The whole basket shares one
+ * trace id.
+ */
+@Slf4j
+@Service
+public class OrderPlacementService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final StockCache stockCache;
+    private final OrderRepository orderRepository;
+    private final RecentOrderIdFilter recentOrderIdFilter;
+    private final OrderEventProducer orderEventProducer;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final int maxBatchSize;
+
+    public OrderPlacementService(StockCache stockCache,
+                                 OrderRepository orderRepository,
+                                 RecentOrderIdFilter recentOrderIdFilter,
+                                 OrderEventProducer orderEventProducer,
+                                 OrderLifecycleMetrics lifecycleMetrics,
+                                 @Value("${trading.orders.max-batch-size:1000}") int maxBatchSize) {
+        this.stockCache = stockCache;
+        this.orderRepository = orderRepository;
+        this.recentOrderIdFilter = recentOrderIdFilter;
+        this.orderEventProducer = orderEventProducer;
+        this.lifecycleMetrics = lifecycleMetrics;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return one result per request, in request order
+     * @throws IllegalArgumentException if the basket is larger than the configured maximum
+     */
+    public List<PlaceOrderResponse> placeOrders(List<PlaceOrderRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Basket of " + requests.size() + " orders exceeds the limit of " + maxBatchSize);
+        }
+
+        String traceId = OrderTrace.currentOrNew();
+        MDC.put(OrderTrace.MDC_KEY, traceId);
+        try {
+            return placeOrders(requests, traceId);
+        } finally {
+            MDC.remove(OrderTrace.MDC_KEY);
+        }
+    }
+
+    private List<PlaceOrderResponse> placeOrders(List<PlaceOrderRequest> requests, String traceId) {
+        PlaceOrderResponse[] results = new PlaceOrderResponse[requests.size()];
+        Set<String> orderIds = new HashSet<>();
+        Set<String> symbols = new HashSet<>();
+
+        // --- Validation, including orderIds repeated within the basket ---
+        long stageStart = System.nanoTime();
+        for (int i = 0; i < requests.size(); i++) {
+            PlaceOrderRequest request = requests.get(i);
+            String invalid = validate(request);
+            if (invalid != null) {
+                results[i] = rejected(request, OrderRejectReason.INVALID_ORDER, invalid);
+            } else if (!orderIds.add(request.getOrderId())) {
+                results[i] = rejected(request, OrderRejectReason.DUPLICATE_ORDER_ID, "orderId repeated in basket");
+            } else {
+                symbols.add(request.getStockSymbol());
+            }
+        }
+
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.VALIDATION, stageStart);
+
+        stageStart = System.nanoTime();
+        Set<String> knownSymbols = stockCache.getAll(symbols).keySet();
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.STOCK_LOOKUP, stageStart);
+
+        // --- Persist everything that is still standing ---
+        List<Order> orders = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<RecentOrderIdFilter.Verdict> verdicts = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            PlaceOrderRequest request = requests.get(i);
+            if (!knownSymbols.contains(request.getStockSymbol())) {
+                results[i] = rejected(request, OrderRejectReason.UNKNOWN_SYMBOL, "Stock not found");
+                continue;
+            }
+            RecentOrderIdFilter.Verdict verdict = recentOrderIdFilter.check(request.getOrderId());
+            if (verdict == RecentOrderIdFilter.Verdict.DUPLICATE) {
+                results[i] = rejected(request, OrderRejectReason.DUPLICATE_ORDER_ID, "Order with this orderId already exists");
+            } else {
+                orders.add(toOrder(request));
+                positions.add(i);
+                verdicts.add(verdict);
+            }
+        }
+
+        stageStart = System.nanoTime();
+        Map<String, Integer> failed = orderRepository.insertAll(orders);
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.ORDER_INSERT, stageStart);
+
+        List<OrderPlacedEvent> events = new ArrayList<>(orders.size());
+        for (int k = 0; k < orders.size(); k++) {
+            Order order = orders.get(k);
+            int i = positions.get(k);
+            Integer errorCode = failed.get(order.getOrderId());
+
+            if (errorCode == null) {
+                recentOrderIdFilter.recordInserted(order.getOrderId(), verdicts.get(k));
+                events.add(toEvent(order));
+                results[i] = PlaceOrderResponse.newBuilder()
+                        .setOrderId(order.getOrderId())
+                        .setStatus(OrderStatus.ACCEPTED)
+                        .setMessage("Order accepted for processing")
+                        .build();
+            } else if (errorCode == DUPLICATE_KEY) {
+                recentOrderIdFilter.recordDuplicate(order.getOrderId());
+                results[i] = rejected(requests.get(i), OrderRejectReason.DUPLICATE_ORDER_ID, "Order with this orderId already exists");
+            } else {
+                log.error("Insert of order {} failed with Mongo error {}", order.getOrderId(), errorCode);
+                results[i] = rejected(requests.get(i), OrderRejectReason.INTERNAL_ERROR, "Order processing failed");
+            }
+        }
+
+        // --- Publish OrderPlacedEvents ---
+        try {
+            orderEventProducer.publishOrderPlaced(events, traceId);
+        } catch (Exception ex) {
+            log.error("Failed to publish {} OrderPlacedEvents", events.size(), ex);
+        }
+
+        log.info("Placed basket of {} orders: {} accepted", requests.size(), events.size());
+        return List.of(results);
+    }
+
+    /**
+     * @return why the request is malformed, or null if it is well-formed
+     */
+    static String validate(PlaceOrderRequest request) {
+        if (request.getOrderId().isBlank()
+                || request.getStockSymbol().isBlank()
+                || request.getQuantity() <= 0) {
+            return "Invalid order request";
+        }
+        if (!Stock.isValidSymbol(request.getStockSymbol())) {
+            return "Invalid stock symbol";
+        }
+        if (request.getOrderType() == OrderType.LIMIT && !(request.getLimitPrice() > 0)) {
+            return "Limit price must be > 0 for LIMIT orders";
+        }
+        return null;
+    }
+
+    static Order toOrder(PlaceOrderRequest request) {
+        return Order.builder()
+                .orderId(request.getOrderId())
+                .accountId(Portfolio.accountOrDefault(request.getAccountId()))
+                .stockSymbol(request.getStockSymbol())
+                .side(request.getSide().name())
+                .quantity(request.getQuantity())
+                .orderType(request.getOrderType().name())
+                .limitPrice(request.getLimitPrice())
+                .status("ACCEPTED")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    static OrderPlacedEvent toEvent(Order order) {
+        return OrderPlacedEvent.builder()
+                .orderId(order.getOrderId())
+                .accountId(order.getAccountId())
+                .stockSymbol(order.getStockSymbol())
+                .side(order.getSide())
+                .quantity(order.getQuantity())
+                .orderType(order.getOrderType())
+                .limitPrice(order.getLimitPrice())
+                // The order's own timestamp, so every stage times the order from the same moment
+                .createdAt(order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant())
+                .build();
+    }
+
+    private static PlaceOrderResponse rejected(PlaceOrderRequest request, OrderRejectReason reason, String message) {
+        return PlaceOrderResponse.newBuilder()
+                .setOrderId(request.getOrderId())
+                .setStatus(OrderStatus.REJECTED)
+                .setRejectReason(reason)
+                .setMessage(message)
+                .build();
+    }
+}
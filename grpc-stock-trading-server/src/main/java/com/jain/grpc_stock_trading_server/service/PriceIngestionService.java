@@ -0,0 +1,142 @@
+package com.jain.grpc_stock_trading_server.service;
+
+import com.jain.grpc.PriceTick;
+import com.jain.grpc.StockResponse;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.streaming.StockPriceHub;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Accepts ticks from feed handlers, pushes them to live subscribers
+ * immediately and writes them to the {@code stocks} collection in
+ * unordered bulk batches.
+ * <p>
+ * Only the latest tick per symbol is kept between flushes, so a burst of
+ * ticks for one symbol costs a single update.
+ */
+@Slf4j
+@Service
+public class PriceIngestionService {
+
+    private final MongoTemplate mongoTemplate;
+    private final StockPriceHub stockPriceHub;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final Map<String, StockResponse> pendingWrites = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "price-ingestion-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PriceIngestionService(MongoTemplate mongoTemplate,
+                                 StockPriceHub stockPriceHub,
+                                 @Value("${trading.prices.ingest.batch-size:500}") int batchSize,
+                                 @Value("${trading.prices.ingest.flush-interval-ms:100}") long flushIntervalMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.stockPriceHub = stockPriceHub;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * @return false if the tick is malformed and was dropped
+     */
+    public boolean accept(PriceTick tick) {
+        if (!Stock.isValidSymbol(tick.getStockSymbol()) || !(tick.getPrice() > 0)) {
+            log.warn("Dropping invalid price tick: symbol='{}', price={}", tick.getStockSymbol(), tick.getPrice());
+            return false;
+        }
+
+        LocalDateTime timestamp;
+        try {
+            timestamp = tick.getTimestamp().isBlank()
+                    ? LocalDateTime.now()
+                    : LocalDateTime.parse(tick.getTimestamp());
+        } catch (DateTimeParseException e) {
+            log.warn("Dropping price tick for {} with bad timestamp '{}'", tick.getStockSymbol(), tick.getTimestamp());
+            return false;
+        }
+
+        // Mongo stores millis; truncate so change-stream echoes compare equal
+        StockResponse update = StockResponse.newBuilder()
+                .setStockSymbol(tick.getStockSymbol())
+                .setPrice(tick.getPrice())
+                .setTimestamp(timestamp.truncatedTo(ChronoUnit.MILLIS).toString())
+                .build();
+
+        stockPriceHub.publish(update);
+
+        pendingWrites.put(update.getStockSymbol(), update);
+        if (pendingWrites.size() >= batchSize) {
+            flusher.execute(this::flush);
+        }
+        return true;
+    }
+
+    private synchronized void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Stock.class);
+        int count = 0;
+
+        for (String symbol : pendingWrites.keySet()) {
+            StockResponse update = pendingWrites.remove(symbol);
+            if (update == null) {
+                continue;
+            }
+            ops.updateOne(
+                    Query.query(where("stockSymbol").is(symbol)),
+                    new Update()
+                            .set("price", update.getPrice())
+                            .set("lastUpdated", LocalDateTime.parse(update.getTimestamp()))
+            );
+            count++;
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        try {
+            ops.execute();
+            log.debug("Flushed {} price updates", count);
+        } catch (Exception e) {
+            log.error("Bulk price write of {} updates failed: {}", count, e.getMessage(), e);
+        }
+    }
+}
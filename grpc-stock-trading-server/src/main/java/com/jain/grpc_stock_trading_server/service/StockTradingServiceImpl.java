@@ -1,41 +1,88 @@
 package com.jain.grpc_stock_trading_server.service;
 
 import com.jain.grpc.*;
+import com.jain.grpc_stock_trading_server.cache.RecentOrderIdFilter;
+import com.jain.grpc_stock_trading_server.cache.StockCache;
 import com.jain.grpc_stock_trading_server.entity.Order;
 import com.jain.grpc_stock_trading_server.entity.Portfolio;
 import com.jain.grpc_stock_trading_server.entity.Stock;
 import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
 import com.jain.grpc_stock_trading_server.kafka.OrderEventProducer;
 import com.jain.grpc_stock_trading_server.repository.OrderRepository;
-import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
-import com.jain.grpc_stock_trading_server.repository.StockRepository;
+import com.jain.grpc_stock_trading_server.repository.ReactiveOrderRepository;
+import com.jain.grpc_stock_trading_server.streaming.ConflatingPriceSubscriber;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.OrderWatcher;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioSubscriber;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.streaming.StockPriceHub;
+import com.jain.grpc_stock_trading_server.streaming.WatchlistSubscriber;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import com.jain.grpc_stock_trading_server.tracing.OrderTrace;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @GrpcService
 public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradingServiceImplBase {
 
     private static final Logger log = LoggerFactory.getLogger(StockTradingServiceImpl.class);
-    private final StockRepository stockRepository;
-    private final PortfolioRepository portfolioRepository;
+    private final StockCache stockCache;
     private final OrderRepository orderRepository;
+    private final ReactiveOrderRepository reactiveOrderRepository;
     private final OrderEventProducer orderEventProducer;
-
-    public StockTradingServiceImpl(StockRepository stockRepository, PortfolioRepository portfolioRepository, OrderRepository orderRepository, OrderEventProducer orderEventProducer) {
-        this.stockRepository = stockRepository;
-        this.portfolioRepository = portfolioRepository;
+    private final StockPriceHub stockPriceHub;
+    private final PriceIngestionService priceIngestionService;
+    private final OrderPlacementService orderPlacementService;
+    private final RecentOrderIdFilter recentOrderIdFilter;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final OrderStatusHub orderStatusHub;
+    private final PortfolioView portfolioView;
+    private final long watchlistLingerMillis;
+    private final int watchlistMaxBatchSize;
+    private final boolean reactiveReads;
+
+    public StockTradingServiceImpl(StockCache stockCache, OrderRepository orderRepository,
+                                   ReactiveOrderRepository reactiveOrderRepository,
+                                   OrderEventProducer orderEventProducer, StockPriceHub stockPriceHub,
+                                   PriceIngestionService priceIngestionService,
+                                   OrderPlacementService orderPlacementService,
+                                   RecentOrderIdFilter recentOrderIdFilter,
+                                   OrderLifecycleMetrics lifecycleMetrics, OrderStatusHub orderStatusHub,
+                                   PortfolioView portfolioView,
+                                   @Value("${trading.prices.stream.linger-ms:50}") long watchlistLingerMillis,
+                                   @Value("${trading.prices.stream.max-batch-size:500}") int watchlistMaxBatchSize,
+                                   @Value("${trading.mongo.read-mode:reactive}") String readMode) {
+        this.stockCache = stockCache;
         this.orderRepository = orderRepository;
+        this.reactiveOrderRepository = reactiveOrderRepository;
         this.orderEventProducer = orderEventProducer;
+        this.stockPriceHub = stockPriceHub;
+        this.priceIngestionService = priceIngestionService;
+        this.orderPlacementService = orderPlacementService;
+        this.recentOrderIdFilter = recentOrderIdFilter;
+        this.lifecycleMetrics = lifecycleMetrics;
+        this.orderStatusHub = orderStatusHub;
+        this.portfolioView = portfolioView;
+        this.watchlistLingerMillis = watchlistLingerMillis;
+        this.watchlistMaxBatchSize = watchlistMaxBatchSize;
+        this.reactiveReads = !"blocking".equalsIgnoreCase(readMode);
     }
 
     @Override
@@ -52,8 +99,22 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
             );
             return;
         }
+
+        if (reactiveReads) {
+            reply(
+                    stockCache.getAsync(stockSymbol)
+                            .map(StockPriceHub::toResponse)
+                            .switchIfEmpty(Mono.error(() -> Status.NOT_FOUND
+                                    .withDescription("Stock not found: " + stockSymbol)
+                                    .asRuntimeException())),
+                    responseObserver,
+                    "stock price for " + stockSymbol
+            );
+            return;
+        }
+
         try {
-            Stock stockEntity = stockRepository.findByStockSymbol(stockSymbol);
+            Stock stockEntity = stockCache.get(stockSymbol);
 
             if (stockEntity == null) {
                 log.warn("Stock not found: {}", stockSymbol);
@@ -88,6 +149,53 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
 
     }
 
+    @Override
+    public void getStockPrices(StockPricesRequest request, StreamObserver<StockPricesResponse> responseObserver) {
+        Set<String> symbols = new LinkedHashSet<>();
+        request.getStockSymbolsList().forEach(symbol -> {
+            if (!symbol.isBlank()) {
+                symbols.add(symbol);
+            }
+        });
+        log.info("Received gRPC request for {} stock symbols", symbols.size());
+
+        if (symbols.isEmpty()) {
+            responseObserver.onError(
+                    Status.INVALID_ARGUMENT
+                            .withDescription("At least one stock symbol is required")
+                            .asRuntimeException()
+            );
+            return;
+        }
+
+        try {
+            // Cache hits are free; all misses are loaded with one $in query
+            Map<String, Stock> known = stockCache.getAll(symbols);
+
+            StockPricesResponse.Builder response = StockPricesResponse.newBuilder();
+            for (String symbol : symbols) {
+                Stock stock = known.get(symbol);
+                if (stock != null) {
+                    response.addStocks(StockPriceHub.toResponse(stock));
+                } else {
+                    response.addUnknownSymbols(symbol);
+                }
+            }
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            log.error("Error fetching stock prices for {}: {}", symbols, e.getMessage(), e);
+            responseObserver.onError(
+                    Status.INTERNAL
+                            .withDescription("Internal server error")
+                            .withCause(e)
+                            .asRuntimeException()
+            );
+        }
+    }
+
     @Override
     public void subscribeStockPrice(StockRequest request, StreamObserver<StockResponse> responseObserver) {
         String stockSymbol = request.getStockSymbol();
@@ -103,7 +211,7 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
             return;
         }
 
-        Stock stockEntity = stockRepository.findByStockSymbol(stockSymbol);
+        Stock stockEntity = stockCache.get(stockSymbol);
         if (stockEntity == null) {
             log.warn("Stock not found for subscription: {}", stockSymbol);
             responseObserver.onError(
@@ -117,82 +225,152 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
         final ServerCallStreamObserver<StockResponse> serverObserver =
                 (ServerCallStreamObserver<StockResponse>) responseObserver;
 
-        // Scheduler for periodic streaming
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        // Register with the shared hub instead of polling per subscriber
+        ConflatingPriceSubscriber subscriber = new ConflatingPriceSubscriber(
+                serverObserver, stockPriceHub.newStreamDeadline());
+        subscriber.attach(() -> {
+            log.info("Client cancelled subscription for {}", stockSymbol);
+            stockPriceHub.unsubscribe(stockSymbol, subscriber);
+        });
 
-        // Stop streaming after 30 seconds (safety cutoff)
-        final long maxDurationSeconds = 30;
-        final long startTime = System.currentTimeMillis();
+        stockPriceHub.subscribe(stockSymbol, subscriber);
 
-        Runnable task = () -> {
-            if (serverObserver.isCancelled()) {
-                log.info("Client cancelled subscription for {}", stockSymbol);
-                scheduler.shutdown();
-                return;
-            }
+        // Every tick published before subscribe() refreshed the cache first, so this
+        // read is at least as new; a tick that got in ahead of it wins on timestamp
+        Stock seed = stockCache.get(stockSymbol);
+        subscriber.onPrice(StockPriceHub.toResponse(seed != null ? seed : stockEntity));
+    }
 
-            long elapsedSeconds = (System.currentTimeMillis() - startTime) / 1000;
-            if (elapsedSeconds >= maxDurationSeconds) {
-                log.info("Max streaming time ({}) reached for {}", maxDurationSeconds, stockSymbol);
-                responseObserver.onCompleted();
-                scheduler.shutdown();
-                return;
-            }
+    @Override
+    public StreamObserver<PriceSubscriptionRequest> streamPrices(StreamObserver<PriceUpdateBatch> responseObserver) {
+        final ServerCallStreamObserver<PriceUpdateBatch> serverObserver =
+                (ServerCallStreamObserver<PriceUpdateBatch>) responseObserver;
+
+        WatchlistSubscriber watchlist = new WatchlistSubscriber(
+                serverObserver, stockPriceHub, watchlistLingerMillis, watchlistMaxBatchSize);
+        watchlist.attach(watchlist::unsubscribeAll);
+
+        log.info("Client opened multi-symbol price stream");
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(PriceSubscriptionRequest request) {
+                Set<String> symbols = new HashSet<>();
+                request.getStockSymbolsList().forEach(symbol -> {
+                    if (!symbol.isBlank()) {
+                        symbols.add(symbol);
+                    }
+                });
+                if (symbols.isEmpty()) {
+                    return;
+                }
 
-            try {
-                Stock latest = stockRepository.findByStockSymbol(stockSymbol);
-                if (latest == null) {
-                    responseObserver.onError(
-                            Status.NOT_FOUND
-                                    .withDescription("Stock no longer exists: " + stockSymbol)
-                                    .asRuntimeException()
-                    );
-                    scheduler.shutdown();
+                if (request.getAction() == SubscriptionAction.UNSUBSCRIBE) {
+                    watchlist.unsubscribe(symbols);
                     return;
                 }
 
-                StockResponse response = StockResponse.newBuilder()
-                        .setStockSymbol(latest.getStockSymbol())
-                        .setPrice(latest.getPrice())
-                        .setTimestamp(latest.getLastUpdated().toString())
-                        .build();
+                try {
+                    Map<String, Stock> known = stockCache.getAll(symbols);
+                    Set<String> knownSymbols = known.keySet();
 
-                responseObserver.onNext(response);
-                log.debug("Pushed update {} for {}", latest.getPrice(), stockSymbol);
+                    watchlist.subscribe(knownSymbols);
+                    known.values().forEach(stock -> watchlist.onPrice(StockPriceHub.toResponse(stock)));
 
-            } catch (Exception e) {
-                log.error("Error streaming stock {}: {}", stockSymbol, e.getMessage(), e);
-                responseObserver.onError(
-                        Status.INTERNAL.withDescription("Error streaming stock").withCause(e).asRuntimeException()
-                );
-                scheduler.shutdown();
+                    symbols.removeAll(knownSymbols);
+                    watchlist.reportUnknown(symbols);
+                    log.debug("Stream subscribed to {} symbols, {} unknown", knownSymbols.size(), symbols.size());
+
+                } catch (Exception e) {
+                    log.error("Error subscribing to {}: {}", symbols, e.getMessage(), e);
+                    watchlist.close(Status.INTERNAL.withDescription("Error subscribing to prices").withCause(e));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.info("Multi-symbol price stream aborted: {}", t.getMessage());
+                watchlist.unsubscribeAll();
+            }
+
+            @Override
+            public void onCompleted() {
+                log.info("Client closed multi-symbol price stream");
+                watchlist.close(Status.OK);
             }
         };
+    }
 
-        // Push updates every 2 seconds
-        scheduler.scheduleAtFixedRate(task, 0, 2, TimeUnit.SECONDS);
+    @Override
+    public StreamObserver<PriceTick> publishPrices(StreamObserver<PublishPricesResponse> responseObserver) {
+        log.info("Price feed connected");
+
+        return new StreamObserver<>() {
+            private long accepted;
+            private long rejected;
+
+            @Override
+            public void onNext(PriceTick tick) {
+                if (priceIngestionService.accept(tick)) {
+                    accepted++;
+                } else {
+                    rejected++;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("Price feed aborted after {} ticks: {}", accepted, t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                log.info("Price feed closed: accepted={}, rejected={}", accepted, rejected);
+                responseObserver.onNext(
+                        PublishPricesResponse.newBuilder()
+                                .setAccepted(accepted)
+                                .setRejected(rejected)
+                                .build()
+                );
+                responseObserver.onCompleted();
+            }
+        };
     }
 
     @Override
     public void placeOrder(PlaceOrderRequest request,
                            StreamObserver<PlaceOrderResponse> responseObserver) {
 
+        String traceId = OrderTrace.currentOrNew();
+        MDC.put(OrderTrace.MDC_KEY, traceId);
+        try {
+            placeOrder(request, traceId, responseObserver);
+        } finally {
+            MDC.remove(OrderTrace.MDC_KEY);
+        }
+    }
+
+    private void placeOrder(PlaceOrderRequest request, String traceId,
+                            StreamObserver<PlaceOrderResponse> responseObserver) {
+
         log.info("Placing order {}", request.getOrderId());
 
         // --- Validation ---
-        if (request.getOrderId().isBlank()
-                || request.getStockSymbol().isBlank()
-                || request.getQuantity() <= 0) {
-
+        long stageStart = System.nanoTime();
+        String invalid = OrderPlacementService.validate(request);
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.VALIDATION, stageStart);
+        if (invalid != null) {
             responseObserver.onError(
                     Status.INVALID_ARGUMENT
-                            .withDescription("Invalid order request")
+                            .withDescription(invalid)
                             .asRuntimeException()
             );
             return;
         }
 
-        Stock stock = stockRepository.findByStockSymbol(request.getStockSymbol());
+        stageStart = System.nanoTime();
+        Stock stock = stockCache.get(request.getStockSymbol());
+        lifecycleMetrics.record(OrderLifecycleMetrics.Stage.STOCK_LOOKUP, stageStart);
         if (stock == null) {
             responseObserver.onError(
                     Status.NOT_FOUND
@@ -202,40 +380,34 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
             return;
         }
 
-        Order existingOrder = orderRepository.findByOrderId(request.getOrderId());
-        if (existingOrder != null) {
-            responseObserver.onError(
-                    Status.ALREADY_EXISTS
-                            .withDescription("Order with this orderId already exists")
-                            .asRuntimeException()
-            );
+        // Cheap in-memory replay check; the unique index decides the rest
+        RecentOrderIdFilter.Verdict verdict = recentOrderIdFilter.check(request.getOrderId());
+        if (verdict == RecentOrderIdFilter.Verdict.DUPLICATE) {
+            responseObserver.onError(alreadyExists());
             return;
         }
 
         try {
             // --- Persist Order ---
-            Order order = Order.builder()
-                    .orderId(request.getOrderId())
-                    .stockSymbol(request.getStockSymbol())
-                    .side(request.getSide().name())
-                    .quantity(request.getQuantity())
-                    .status("ACCEPTED")
-                    .createdAt(LocalDateTime.now())
-                    .build();
+            Order order = OrderPlacementService.toOrder(request);
 
-            orderRepository.save(order);
+            stageStart = System.nanoTime();
+            try {
+                orderRepository.insert(order);
+            } catch (DuplicateKeyException e) {
+                recentOrderIdFilter.recordDuplicate(order.getOrderId());
+                responseObserver.onError(alreadyExists());
+                return;
+            } finally {
+                lifecycleMetrics.record(OrderLifecycleMetrics.Stage.ORDER_INSERT, stageStart);
+            }
+            recentOrderIdFilter.recordInserted(order.getOrderId(), verdict);
 
             // --- Publish OrderPlacedEvent ---
-            OrderPlacedEvent event = OrderPlacedEvent.builder()
-                    .orderId(order.getOrderId())
-                    .stockSymbol(order.getStockSymbol())
-                    .side(order.getSide())
-                    .quantity(order.getQuantity())
-                    .createdAt(Instant.now())
-                    .build();
+            OrderPlacedEvent event = OrderPlacementService.toEvent(order);
 
             try {
-                orderEventProducer.publishOrderPlaced(event);
+                orderEventProducer.publishOrderPlaced(event, traceId);
             } catch (Exception ex) {
                 log.error(
                         "Failed to publish OrderPlacedEvent for orderId={}",
@@ -263,6 +435,36 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
         }
     }
 
+    @Override
+    public void placeOrders(PlaceOrdersRequest request,
+                            StreamObserver<PlaceOrdersResponse> responseObserver) {
+
+        log.info("Placing basket of {} orders", request.getOrdersCount());
+
+        try {
+            responseObserver.onNext(
+                    PlaceOrdersResponse.newBuilder()
+                            .addAllResults(orderPlacementService.placeOrders(request.getOrdersList()))
+                            .build()
+            );
+            responseObserver.onCompleted();
+
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(
+                    Status.INVALID_ARGUMENT
+                            .withDescription(e.getMessage())
+                            .asRuntimeException()
+            );
+        } catch (Exception e) {
+            log.error("Basket placement failed", e);
+            responseObserver.onError(
+                    Status.INTERNAL
+                            .withDescription("Order processing failed")
+                            .asRuntimeException()
+            );
+        }
+    }
+
 
     @Override
     public void getOrder(GetOrderRequest request,
@@ -277,6 +479,19 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
             return;
         }
 
+        if (reactiveReads) {
+            reply(
+                    reactiveOrderRepository.findByOrderId(request.getOrderId())
+                            .map(OrderStatusHub::toResponse)
+                            .switchIfEmpty(Mono.error(() -> Status.NOT_FOUND
+                                    .withDescription("Order not found")
+                                    .asRuntimeException())),
+                    responseObserver,
+                    "order " + request.getOrderId()
+            );
+            return;
+        }
+
         Order order = orderRepository.findByOrderId(request.getOrderId());
         if (order == null) {
             responseObserver.onError(
@@ -287,54 +502,129 @@ public class StockTradingServiceImpl extends StockTradingServiceGrpc.StockTradin
             return;
         }
 
-        responseObserver.onNext(
-                GetOrderResponse.newBuilder()
-                        .setOrderId(order.getOrderId())
-                        .setStockSymbol(order.getStockSymbol())
-                        .setSide(OrderSide.valueOf(order.getSide()))
-                        .setQuantity(order.getQuantity())
-                        .setStatus(OrderStatus.valueOf(order.getStatus()))
-                        .setCreatedAt(order.getCreatedAt().toString())
-                        .build()
-        );
+        responseObserver.onNext(OrderStatusHub.toResponse(order));
         responseObserver.onCompleted();
     }
 
+    /**
+     * Register before reading the order, so a status written in between is
+     * either in the read or pushed afterwards; the watcher drops whichever
+     * of the two is older.
+     */
     @Override
-    public void getPortfolio(GetPortfolioRequest request,
-                             StreamObserver<GetPortfolioResponse> responseObserver) {
+    public void watchOrder(WatchOrderRequest request,
+                           StreamObserver<GetOrderResponse> responseObserver) {
 
-        Portfolio portfolio = portfolioRepository.findAll()
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-        if (portfolio == null) {
-            responseObserver.onNext(
-                    GetPortfolioResponse.newBuilder()
-                            .setLastUpdated(LocalDateTime.now().toString())
-                            .build()
+        String orderId = request.getOrderId();
+        if (orderId.isBlank()) {
+            responseObserver.onError(
+                    Status.INVALID_ARGUMENT
+                            .withDescription("Order ID required")
+                            .asRuntimeException()
             );
-            responseObserver.onCompleted();
             return;
         }
 
-        GetPortfolioResponse.Builder builder =
-                GetPortfolioResponse.newBuilder()
-                        .setLastUpdated(portfolio.getLastUpdated().toString());
+        OrderWatcher watcher = new OrderWatcher((ServerCallStreamObserver<GetOrderResponse>) responseObserver);
+        watcher.attach(() -> orderStatusHub.unwatch(orderId, watcher));
+        orderStatusHub.watch(orderId, watcher);
+
+        if (reactiveReads) {
+            reactiveOrderRepository.findByOrderId(orderId)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .subscribe(
+                            order -> onWatchedOrder(orderId, watcher, order.orElse(null)),
+                            error -> onWatchError(orderId, watcher, error)
+                    );
+            return;
+        }
+
+        try {
+            onWatchedOrder(orderId, watcher, orderRepository.findByOrderId(orderId));
+        } catch (Exception e) {
+            onWatchError(orderId, watcher, e);
+        }
+    }
 
-        portfolio.getHoldings().forEach((symbol, qty) ->
-                builder.addHoldings(
-                        Holding.newBuilder()
-                                .setStockSymbol(symbol)
-                                .setQuantity(qty)
-                                .build()
-                )
-        );
+    private void onWatchedOrder(String orderId, OrderWatcher watcher, Order order) {
+        if (order == null) {
+            orderStatusHub.unwatch(orderId, watcher);
+            watcher.close(Status.NOT_FOUND.withDescription("Order not found"));
+            return;
+        }
 
-        responseObserver.onNext(builder.build());
+        GetOrderResponse current = OrderStatusHub.toResponse(order);
+        watcher.onUpdate(current);
+        if (OrderWatcher.isFinal(current)) {
+            orderStatusHub.unwatch(orderId, watcher);
+        }
+    }
+
+    private void onWatchError(String orderId, OrderWatcher watcher, Throwable error) {
+        log.error("Error fetching watched order {}: {}", orderId, error.getMessage(), error);
+        orderStatusHub.unwatch(orderId, watcher);
+        watcher.close(Status.INTERNAL.withDescription("Internal server error").withCause(error));
+    }
+
+    @Override
+    public void getPortfolio(GetPortfolioRequest request,
+                             StreamObserver<GetPortfolioResponse> responseObserver) {
+
+        responseObserver.onNext(portfolioView.snapshot(Portfolio.accountOrDefault(request.getAccountId())));
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void streamPortfolio(GetPortfolioRequest request,
+                                StreamObserver<PortfolioUpdate> responseObserver) {
+
+        String accountId = Portfolio.accountOrDefault(request.getAccountId());
+        PortfolioSubscriber subscriber = new PortfolioSubscriber(
+                (ServerCallStreamObserver<PortfolioUpdate>) responseObserver, accountId);
+        subscriber.attach(() -> {
+            log.info("Client closed portfolio stream for account {}", accountId);
+            portfolioView.unsubscribe(subscriber);
+        });
+
+        log.info("Client opened portfolio stream for account {}", accountId);
+        portfolioView.subscribe(subscriber);
+    }
 
+    /**
+     * Send a unary response from the driver callback that produces it; the
+     * gRPC thread returns as soon as the query is issued. A client cancel
+     * disposes the subscription.
+     */
+    private static <T> void reply(Mono<T> result, StreamObserver<T> responseObserver, String what) {
+        ServerCallStreamObserver<T> serverObserver = (ServerCallStreamObserver<T>) responseObserver;
+        Disposable.Swap subscription = Disposables.swap();
+        serverObserver.setOnCancelHandler(subscription::dispose);
+
+        subscription.update(result.subscribe(
+                response -> {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                },
+                error -> {
+                    if (error instanceof StatusRuntimeException statusError) {
+                        responseObserver.onError(statusError);
+                        return;
+                    }
+                    log.error("Error fetching {}: {}", what, error.getMessage(), error);
+                    responseObserver.onError(
+                            Status.INTERNAL
+                                    .withDescription("Internal server error")
+                                    .withCause(error)
+                                    .asRuntimeException()
+                    );
+                }
+        ));
+    }
+
+    private static StatusRuntimeException alreadyExists() {
+        return Status.ALREADY_EXISTS
+                .withDescription("Order with this orderId already exists")
+                .asRuntimeException();
+    }
 }
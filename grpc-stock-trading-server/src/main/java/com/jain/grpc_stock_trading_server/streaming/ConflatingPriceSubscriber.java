@@ -0,0 +1,59 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-symbol subscriber that keeps only the latest undelivered price,
+ * so a slow client skips intermediate prices instead of queueing them.
+ * A price older than one already accepted (e.g. the initial snapshot
+ * racing a live tick) is dropped, so the stream never goes backwards.
+ */
+public class ConflatingPriceSubscriber extends FlowControlledStream<StockResponse> implements PriceSubscriber {
+
+    private final long expiresAtMillis;
+    private final AtomicReference<StockResponse> pending = new AtomicReference<>();
+
+    // Guarded by this
+    private StockResponse latest;
+
+    public ConflatingPriceSubscriber(ServerCallStreamObserver<StockResponse> observer, long expiresAtMillis) {
+        super(observer);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    @Override
+    public void onPrice(StockResponse update) {
+        synchronized (this) {
+            if (latest != null && !StockPriceHub.isNewer(update, latest)) {
+                return;
+            }
+            latest = update;
+            pending.set(update);
+        }
+        drain();
+    }
+
+    @Override
+    public void onSymbolRemoved(String stockSymbol) {
+        close(Status.NOT_FOUND.withDescription("Stock no longer exists: " + stockSymbol));
+    }
+
+    @Override
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    @Override
+    protected StockResponse poll() {
+        return pending.getAndSet(null);
+    }
+
+    @Override
+    protected void discard() {
+        pending.set(null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base for server streams written from several threads.
+ * <p>
+ * All observer calls go through {@link #drain()}, which is serialised with a
+ * work-in-progress counter: whoever wins emits on behalf of every concurrent
+ * caller. Messages are only written while the transport reports
+ * {@code isReady()}; the on-ready handler resumes delivery.
+ */
+abstract class FlowControlledStream<T> {
+
+    protected final ServerCallStreamObserver<T> observer;
+
+    private final AtomicReference<Status> terminal = new AtomicReference<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean done;
+
+    protected FlowControlledStream(ServerCallStreamObserver<T> observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Must be called from the service method, before it returns.
+     */
+    public void attach(Runnable onCancel) {
+        observer.setOnReadyHandler(this::drain);
+        observer.setOnCancelHandler(() -> {
+            done = true;
+            onCancel.run();
+        });
+    }
+
+    /**
+     * Terminate the stream with the given status (OK completes it).
+     */
+    public void close(Status status) {
+        if (terminal.compareAndSet(null, status)) {
+            drain();
+        }
+    }
+
+    protected boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Next message to write, or null when nothing is pending.
+     */
+    protected abstract T poll();
+
+    /**
+     * Drop anything still pending once the stream is finished.
+     */
+    protected abstract void discard();
+
+    protected void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            if (done) {
+                discard();
+                continue;
+            }
+
+            Status status = terminal.get();
+            if (status != null) {
+                done = true;
+                discard();
+                if (status.isOk()) {
+                    observer.onCompleted();
+                } else {
+                    observer.onError(status.asRuntimeException());
+                }
+                continue;
+            }
+
+            while (observer.isReady()) {
+                T next = poll();
+                if (next == null) {
+                    break;
+                }
+                observer.onNext(next);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
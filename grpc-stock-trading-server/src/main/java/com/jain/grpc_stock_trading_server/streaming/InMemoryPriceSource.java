@@ -0,0 +1,40 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for the Mongo change stream in tests and local runs:
+ * prices only move when someone calls {@link #emit}.
+ */
+@Component
+@ConditionalOnProperty(name = "trading.prices.source", havingValue = "in-memory")
+public class InMemoryPriceSource implements PriceSource {
+
+    private volatile PriceSink sink;
+
+    @Override
+    public void start(PriceSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void stop() {
+        this.sink = null;
+    }
+
+    public void emit(StockResponse update) {
+        PriceSink current = sink;
+        if (current != null) {
+            current.publish(update);
+        }
+    }
+
+    public void remove(String stockSymbol) {
+        PriceSink current = sink;
+        if (current != null) {
+            current.symbolRemoved(stockSymbol);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Pushes every insert/update on the {@code stocks} collection to the hub
+ * as soon as Mongo reports it, watched or not, so the stock cache stays
+ * current too. Requires a replica set (Atlas is one).
+ * <p>
+ * A delete event only carries the document {@code _id}, so the symbol of
+ * every stock is kept by id: loaded once at start, then maintained from
+ * the stream itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "trading.prices.source", havingValue = "change-stream", matchIfMissing = true)
+public class MongoChangeStreamPriceSource implements PriceSource {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<ObjectId, String> symbolsById = new ConcurrentHashMap<>();
+
+    private MessageListenerContainer container;
+
+    @Override
+    public void start(PriceSink sink) {
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+
+        MessageListener<ChangeStreamDocument<Document>, Stock> listener = message -> {
+            ChangeStreamDocument<Document> raw = message.getRaw();
+            if (raw != null && raw.getOperationType() == OperationType.DELETE) {
+                removed(raw.getDocumentKey(), sink);
+                return;
+            }
+            Stock stock = message.getBody();
+            if (stock != null) {
+                symbolsById.put(stock.getId(), stock.getStockSymbol());
+                sink.publish(StockPriceHub.toResponse(stock));
+            }
+        };
+
+        ChangeStreamRequest<Stock> request = ChangeStreamRequest.builder(listener)
+                .collection(mongoTemplate.getCollectionName(Stock.class))
+                .filter(newAggregation(match(where("operationType").in("insert", "update", "replace", "delete"))))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build();
+
+        container.register(request, Stock.class, e -> log.error("Stock change stream error: {}", e.getMessage(), e));
+        container.start();
+
+        // After the stream is open, so a stock inserted meanwhile is in one or the other
+        Query ids = new Query();
+        ids.fields().include("stockSymbol");
+        mongoTemplate.find(ids, Stock.class).forEach(stock -> symbolsById.putIfAbsent(stock.getId(), stock.getStockSymbol()));
+
+        log.info("Listening for stock price changes on Mongo change stream ({} stocks known)", symbolsById.size());
+    }
+
+    private void removed(BsonDocument documentKey, PriceSink sink) {
+        BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        String symbol = id != null && id.isObjectId() ? symbolsById.remove(id.asObjectId().getValue()) : null;
+        if (symbol == null) {
+            log.warn("Stock {} deleted, but its symbol is unknown", id);
+            return;
+        }
+        sink.symbolRemoved(symbol);
+    }
+
+    @Override
+    public void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import com.jain.grpc_stock_trading_server.repository.StockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fallback for deployments without change streams: loads every watched
+ * symbol with a single {@code $in} query per interval.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trading.prices.source", havingValue = "polling")
+public class MongoPollingPriceSource implements PriceSource {
+
+    private final StockRepository stockRepository;
+    private final long pollIntervalMillis;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stock-price-poller");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MongoPollingPriceSource(StockRepository stockRepository,
+                                   @Value("${trading.prices.poll-interval-ms:2000}") long pollIntervalMillis) {
+        this.stockRepository = stockRepository;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    @Override
+    public void start(PriceSink sink) {
+        poller.scheduleWithFixedDelay(() -> poll(sink), pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    private void poll(PriceSink sink) {
+        try {
+            Set<String> watched = new HashSet<>(sink.watchedSymbols());
+            if (watched.isEmpty()) {
+                return;
+            }
+
+            List<Stock> latest = stockRepository.findByStockSymbolIn(watched);
+            for (Stock stock : latest) {
+                watched.remove(stock.getStockSymbol());
+                sink.publish(StockPriceHub.toResponse(stock));
+            }
+
+            // Anything left over was deleted from the collection
+            watched.forEach(sink::symbolRemoved);
+        } catch (Exception e) {
+            log.error("Error polling stock prices: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.GetOrderResponse;
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderStatus;
+import com.jain.grpc.OrderType;
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.repository.OrderRepository;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of {@code WatchOrder} streams on this server.
+ * <p>
+ * The order consumer and the fill recorder {@link #publish} every status
+ * they write, so watchers hear about it without reading Mongo. Orders
+ * consumed by another server instance are caught by a periodic re-read
+ * of all watched orders, one {@code $in} query per
+ * {@code trading.orders.watch.recheck-seconds} for the whole server.
+ */
+@Slf4j
+@Component
+public class OrderStatusHub {
+
+    private static final int RECHECK_BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final long recheckSeconds;
+
+    private final Map<String, Set<OrderWatcher>> watchers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-status-recheck");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OrderStatusHub(OrderRepository orderRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${trading.orders.watch.recheck-seconds:5}") long recheckSeconds) {
+        this.orderRepository = orderRepository;
+        this.recheckSeconds = recheckSeconds;
+
+        Gauge.builder("order_status_hub_orders", watchers, Map::size)
+                .description("Orders with at least one open WatchOrder stream")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (recheckSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::recheck, recheckSeconds, recheckSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        watchers.values().forEach(set -> set.forEach(w -> w.close(Status.UNAVAILABLE.withDescription("Server shutting down"))));
+        watchers.clear();
+    }
+
+    public void watch(String orderId, OrderWatcher watcher) {
+        watchers.computeIfAbsent(orderId, k -> ConcurrentHashMap.newKeySet()).add(watcher);
+    }
+
+    public void unwatch(String orderId, OrderWatcher watcher) {
+        watchers.computeIfPresent(orderId, (k, set) -> {
+            set.remove(watcher);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public boolean isWatched(String orderId) {
+        return watchers.containsKey(orderId);
+    }
+
+    /**
+     * Push an order's current state to everyone watching it. Watchers of
+     * an order that reached a final status are released.
+     */
+    public void publish(Order order) {
+        Set<OrderWatcher> set = watchers.get(order.getOrderId());
+        if (set == null) {
+            return;
+        }
+        GetOrderResponse update = toResponse(order);
+        set.forEach(watcher -> watcher.onUpdate(update));
+        if (OrderWatcher.isFinal(update)) {
+            watchers.remove(order.getOrderId());
+        }
+    }
+
+    public static GetOrderResponse toResponse(Order order) {
+        return GetOrderResponse.newBuilder()
+                .setOrderId(order.getOrderId())
+                .setStockSymbol(order.getStockSymbol())
+                .setSide(OrderSide.valueOf(order.getSide()))
+                .setQuantity(order.getQuantity())
+                .setStatus(OrderStatus.valueOf(order.getStatus()))
+                .setCreatedAt(order.getCreatedAt().toString())
+                .setOrderType(order.getOrderType() == null ? OrderType.MARKET : OrderType.valueOf(order.getOrderType()))
+                .setLimitPrice(order.getLimitPrice())
+                .setFilledQuantity(order.getFilledQuantity())
+                .setAverageFillPrice(order.getFilledQuantity() > 0 ? order.getFilledNotional() / order.getFilledQuantity() : 0)
+                .setAccountId(Portfolio.accountOrDefault(order.getAccountId()))
+                .build();
+    }
+
+    private void recheck() {
+        List<String> orderIds = new ArrayList<>(watchers.keySet());
+        for (int from = 0; from < orderIds.size(); from += RECHECK_BATCH_SIZE) {
+            List<String> batch = orderIds.subList(from, Math.min(from + RECHECK_BATCH_SIZE, orderIds.size()));
+            try {
+                orderRepository.findByOrderIdIn(batch).forEach(this::publish);
+            } catch (Exception e) {
+                log.warn("Re-reading {} watched orders failed: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+}
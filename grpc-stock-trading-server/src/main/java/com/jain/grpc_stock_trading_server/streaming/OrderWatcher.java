@@ -0,0 +1,61 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.GetOrderResponse;
+import com.jain.grpc.OrderStatus;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One {@code WatchOrder} stream. Keeps only the latest undelivered state and
+ * never goes backwards: an update that is not further along than the last
+ * one accepted (same status and fill, or a stale read racing a push) is
+ * dropped. The stream completes right after the first final state.
+ */
+public class OrderWatcher extends FlowControlledStream<GetOrderResponse> {
+
+    private final AtomicReference<GetOrderResponse> pending = new AtomicReference<>();
+
+    // Guarded by this
+    private long progress = -1;
+
+    public OrderWatcher(ServerCallStreamObserver<GetOrderResponse> observer) {
+        super(observer);
+    }
+
+    public void onUpdate(GetOrderResponse update) {
+        synchronized (this) {
+            long next = progress(update);
+            if (next <= progress) {
+                return;
+            }
+            progress = next;
+            pending.set(update);
+        }
+        drain();
+    }
+
+    public static boolean isFinal(GetOrderResponse update) {
+        return update.getStatus() == OrderStatus.EXECUTED || update.getStatus() == OrderStatus.REJECTED;
+    }
+
+    private static long progress(GetOrderResponse update) {
+        return isFinal(update) ? Long.MAX_VALUE : update.getFilledQuantity();
+    }
+
+    @Override
+    protected GetOrderResponse poll() {
+        GetOrderResponse next = pending.getAndSet(null);
+        if (next != null && isFinal(next)) {
+            // Takes effect once this message is written
+            close(Status.OK);
+        }
+        return next;
+    }
+
+    @Override
+    protected void discard() {
+        pending.set(null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.Holding;
+import com.jain.grpc.PortfolioUpdate;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One {@code StreamPortfolio} stream. Changes that arrive while the client
+ * is not ready are merged per symbol, so a slow dashboard gets one update
+ * with the latest quantities instead of a queue. Changes merged into a
+ * snapshot that has not gone out yet keep it a snapshot.
+ */
+public class PortfolioSubscriber extends FlowControlledStream<PortfolioUpdate> {
+
+    private final String accountId;
+
+    // All guarded by this
+    private Map<String, Integer> pending;
+    private boolean snapshot;
+    private LocalDateTime lastUpdated;
+
+    public PortfolioSubscriber(ServerCallStreamObserver<PortfolioUpdate> observer, String accountId) {
+        super(observer);
+        this.accountId = accountId;
+    }
+
+    public String accountId() {
+        return accountId;
+    }
+
+    void onSnapshot(Map<String, Integer> holdings, LocalDateTime at) {
+        synchronized (this) {
+            pending = new TreeMap<>(holdings);
+            snapshot = true;
+            lastUpdated = at;
+        }
+        drain();
+    }
+
+    void onChange(Map<String, Integer> changed, LocalDateTime at) {
+        synchronized (this) {
+            if (pending == null) {
+                pending = new TreeMap<>();
+            }
+            pending.putAll(changed);
+            lastUpdated = at;
+        }
+        drain();
+    }
+
+    @Override
+    protected synchronized PortfolioUpdate poll() {
+        if (pending == null) {
+            return null;
+        }
+        PortfolioUpdate.Builder update = PortfolioUpdate.newBuilder()
+                .setAccountId(accountId)
+                .setSnapshot(snapshot)
+                .setLastUpdated(lastUpdated.toString());
+        pending.forEach((symbol, qty) -> update.addHoldings(
+                Holding.newBuilder()
+                        .setStockSymbol(symbol)
+                        .setQuantity(qty)
+                        .build()
+        ));
+        pending = null;
+        snapshot = false;
+        return update.build();
+    }
+
+    @Override
+    protected synchronized void discard() {
+        pending = null;
+    }
+}
@@ -0,0 +1,240 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.GetPortfolioResponse;
+import com.jain.grpc.Holding;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of every account's portfolio, so {@code GetPortfolio} and
+ * {@code StreamPortfolio} never read Mongo.
+ * <p>
+ * Loaded at startup, then kept current by the order consumer and the fill
+ * recorder, which {@link #applyDeltas apply} every holding change they have
+ * written. Changes written by another server instance are picked up by
+ * re-reading all portfolios every {@code trading.portfolio.resync-seconds}.
+ * An account changed locally while the re-read was in flight keeps its
+ * newer in-memory holdings and is compared again on the next pass; every
+ * other account takes the stored values.
+ */
+@Slf4j
+@Component
+public class PortfolioView {
+
+    private final PortfolioRepository portfolioRepository;
+    private final long resyncSeconds;
+
+    private final Map<String, Set<PortfolioSubscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Guarded by this; symbols are sorted so responses list them in a stable order
+    private final Map<String, Map<String, Integer>> holdings = new HashMap<>();
+    private final Map<String, LocalDateTime> lastUpdated = new HashMap<>();
+    private final Map<String, Long> changedAt = new HashMap<>();
+    private long version;
+
+    // Per known account, rebuilt on the first read after a change
+    private final Map<String, GetPortfolioResponse> responses = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "portfolio-resync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PortfolioView(PortfolioRepository portfolioRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${trading.portfolio.resync-seconds:10}") long resyncSeconds) {
+        this.portfolioRepository = portfolioRepository;
+        this.resyncSeconds = resyncSeconds;
+
+        Gauge.builder("portfolio_view_accounts", this, PortfolioView::accountCount)
+                .description("Accounts held in the in-memory portfolio view")
+                .register(meterRegistry);
+        Gauge.builder("portfolio_view_subscribers", this, PortfolioView::subscriberCount)
+                .description("Open StreamPortfolio streams")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (portfolioRepository.claimUnassigned(Portfolio.DEFAULT_ACCOUNT) > 0) {
+            log.info("Assigned the pre-account portfolio to account {}", Portfolio.DEFAULT_ACCOUNT);
+        }
+        resync();
+        if (resyncSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    resync();
+                } catch (Exception e) {
+                    log.warn("Portfolio resync failed: {}", e.getMessage());
+                }
+            }, resyncSeconds, resyncSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(s -> s.close(Status.UNAVAILABLE.withDescription("Server shutting down"))));
+        subscribers.clear();
+    }
+
+    /**
+     * The account's holdings; an account with no portfolio yet has none.
+     */
+    public GetPortfolioResponse snapshot(String accountId) {
+        GetPortfolioResponse current = responses.get(accountId);
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            Map<String, Integer> account = holdings.get(accountId);
+            GetPortfolioResponse.Builder builder = GetPortfolioResponse.newBuilder()
+                    .setAccountId(accountId)
+                    .setLastUpdated(lastUpdated.getOrDefault(accountId, LocalDateTime.now()).toString());
+            if (account == null) {
+                // Not cached, so unknown account ids cannot grow the map
+                return builder.build();
+            }
+            account.forEach((symbol, qty) -> builder.addHoldings(
+                    Holding.newBuilder()
+                            .setStockSymbol(symbol)
+                            .setQuantity(qty)
+                            .build()
+            ));
+            GetPortfolioResponse response = builder.build();
+            responses.put(accountId, response);
+            return response;
+        }
+    }
+
+    /**
+     * Send the account's current holdings, then every change, to the subscriber.
+     */
+    public synchronized void subscribe(PortfolioSubscriber subscriber) {
+        String accountId = subscriber.accountId();
+        subscribers.computeIfAbsent(accountId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.onSnapshot(holdings.getOrDefault(accountId, Map.of()),
+                lastUpdated.getOrDefault(accountId, LocalDateTime.now()));
+    }
+
+    public void unsubscribe(PortfolioSubscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.accountId(), (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Apply quantity changes to one account that are already in Mongo.
+     */
+    public synchronized void applyDeltas(String accountId, Map<String, Integer> deltas) {
+        Map<String, Integer> account = holdings.computeIfAbsent(accountId, k -> new TreeMap<>());
+        Map<String, Integer> changed = new HashMap<>();
+        deltas.forEach((symbol, delta) -> {
+            if (delta != 0) {
+                changed.put(symbol, account.merge(symbol, delta, Integer::sum));
+            }
+        });
+        changedAt.put(accountId, ++version);
+        publish(accountId, changed, LocalDateTime.now());
+    }
+
+    void resync() {
+        long seen;
+        synchronized (this) {
+            seen = version;
+        }
+
+        Map<String, Portfolio> stored = new HashMap<>();
+        portfolioRepository.findAll().forEach(p -> stored.put(Portfolio.accountOrDefault(p.getAccountId()), p));
+
+        synchronized (this) {
+            Set<String> accounts = new HashSet<>(holdings.keySet());
+            accounts.addAll(stored.keySet());
+            int changedAccounts = 0;
+            int skippedAccounts = 0;
+
+            for (String accountId : accounts) {
+                if (changedAt.getOrDefault(accountId, 0L) > seen) {
+                    // The read may predate this change; compare again next round
+                    skippedAccounts++;
+                    continue;
+                }
+                Portfolio portfolio = stored.get(accountId);
+                Map<String, Integer> fresh = portfolio == null || portfolio.getHoldings() == null
+                        ? Map.of()
+                        : portfolio.getHoldings();
+                Map<String, Integer> account = holdings.computeIfAbsent(accountId, k -> new TreeMap<>());
+
+                Map<String, Integer> changed = new HashMap<>();
+                account.forEach((symbol, qty) -> {
+                    if (!fresh.containsKey(symbol)) {
+                        changed.put(symbol, 0);
+                    }
+                });
+                fresh.forEach((symbol, qty) -> {
+                    if (!qty.equals(account.get(symbol))) {
+                        changed.put(symbol, qty);
+                    }
+                });
+                if (changed.isEmpty()) {
+                    continue;
+                }
+
+                account.keySet().retainAll(fresh.keySet());
+                account.putAll(fresh);
+                changedAccounts++;
+                publish(accountId, changed, portfolio != null && portfolio.getLastUpdated() != null
+                        ? portfolio.getLastUpdated()
+                        : LocalDateTime.now());
+            }
+            if (changedAccounts > 0) {
+                log.info("Portfolio resynced from Mongo, {} accounts changed", changedAccounts);
+            }
+            if (skippedAccounts > 0) {
+                log.debug("Portfolio resync skipped {} accounts changed during the read", skippedAccounts);
+            }
+        }
+    }
+
+    // Caller holds the lock, so every subscriber sees changes in the same order
+    private void publish(String accountId, Map<String, Integer> changed, LocalDateTime at) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        lastUpdated.put(accountId, at);
+        responses.remove(accountId);
+        Set<PortfolioSubscriber> watching = subscribers.get(accountId);
+        if (watching != null) {
+            watching.forEach(subscriber -> subscriber.onChange(changed, at));
+        }
+    }
+
+    private synchronized int accountCount() {
+        return holdings.size();
+    }
+
+    private int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+
+import java.util.Set;
+
+/**
+ * Receiving side of a {@link PriceSource}; implemented by the {@link StockPriceHub}.
+ */
+public interface PriceSink {
+
+    /**
+     * Symbols that currently have at least one subscriber.
+     */
+    Set<String> watchedSymbols();
+
+    void publish(StockResponse update);
+
+    void symbolRemoved(String stockSymbol);
+}
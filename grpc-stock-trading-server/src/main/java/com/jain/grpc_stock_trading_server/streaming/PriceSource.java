@@ -0,0 +1,16 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+/**
+ * Where the {@link StockPriceHub} gets prices written by other processes.
+ * <p>
+ * Exactly one source is active, selected with {@code trading.prices.source}:
+ * {@code change-stream} (default), {@code polling} or {@code in-memory}.
+ * Ticks arriving through {@code PublishPrices} are pushed to the hub directly
+ * and do not depend on the source.
+ */
+public interface PriceSource {
+
+    void start(PriceSink sink);
+
+    void stop();
+}
@@ -0,0 +1,33 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import io.grpc.Status;
+
+/**
+ * A live price stream registered with the {@link StockPriceHub}.
+ * Implementations must never block the caller: the hub delivers
+ * from the price source thread to every subscriber.
+ */
+public interface PriceSubscriber {
+
+    /**
+     * New price for one of the subscribed symbols.
+     */
+    void onPrice(StockResponse update);
+
+    /**
+     * The symbol disappeared from the stocks collection.
+     */
+    void onSymbolRemoved(String stockSymbol);
+
+    /**
+     * Checked by the hub once a second for the streaming safety cutoff;
+     * an expired subscriber is unsubscribed and completed.
+     */
+    boolean isExpired(long nowMillis);
+
+    /**
+     * Terminate the stream with the given status (OK completes it).
+     */
+    void close(Status status);
+}
@@ -0,0 +1,183 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import com.jain.grpc_stock_trading_server.cache.StockCache;
+import com.jain.grpc_stock_trading_server.entity.Stock;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared fan-out for live stock prices.
+ * <p>
+ * Prices arrive from the configured {@link PriceSource} and from the
+ * {@code PublishPrices} ingestion path, and are pushed to every registered
+ * {@link PriceSubscriber} as soon as they change. Thread count and Mongo load
+ * depend on the number of watched symbols, not on the number of subscribers.
+ */
+@Slf4j
+@Component
+public class StockPriceHub implements PriceSink {
+
+    private final PriceSource priceSource;
+    private final StockCache stockCache;
+    private final long maxStreamMillis;
+
+    private final Map<String, Set<PriceSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, StockResponse> lastPublished = new ConcurrentHashMap<>();
+
+    // Streaming cutoff and delayed batch flushes; prices are pushed by the source
+    private final ScheduledExecutorService scheduler;
+
+    public StockPriceHub(PriceSource priceSource,
+                         StockCache stockCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${trading.prices.max-stream-seconds:30}") long maxStreamSeconds,
+                         @Value("${trading.prices.delivery-threads:2}") int deliveryThreads) {
+        this.priceSource = priceSource;
+        this.stockCache = stockCache;
+        this.maxStreamMillis = TimeUnit.SECONDS.toMillis(maxStreamSeconds);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(deliveryThreads, r -> {
+            Thread t = new Thread(r, "stock-price-hub-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("stock_price_hub_symbols", subscribers, Map::size)
+                .description("Symbols with at least one live subscriber")
+                .register(meterRegistry);
+        Gauge.builder("stock_price_hub_subscribers", this, StockPriceHub::subscriberCount)
+                .description("Live price subscriptions across all symbols")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::expireSubscribers, 1, 1, TimeUnit.SECONDS);
+        priceSource.start(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        priceSource.stop();
+        scheduler.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(s -> s.close(Status.UNAVAILABLE.withDescription("Server shutting down"))));
+        subscribers.clear();
+    }
+
+    /**
+     * Deadline for a subscription that starts now.
+     */
+    public long newStreamDeadline() {
+        return System.currentTimeMillis() + maxStreamMillis;
+    }
+
+    /**
+     * Run a delayed delivery task on the hub's threads.
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void subscribe(String stockSymbol, PriceSubscriber subscriber) {
+        subscribers.computeIfAbsent(stockSymbol, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        log.debug("Subscriber added for {} (total {})", stockSymbol, subscriberCount());
+    }
+
+    public void unsubscribe(String stockSymbol, PriceSubscriber subscriber) {
+        subscribers.computeIfPresent(stockSymbol, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        if (!subscribers.containsKey(stockSymbol)) {
+            lastPublished.remove(stockSymbol);
+        }
+    }
+
+    @Override
+    public Set<String> watchedSymbols() {
+        return subscribers.keySet();
+    }
+
+    /**
+     * Fan a price out to everyone watching its symbol, skipping any price not
+     * newer than the last one sent: the change stream echoes ticks that
+     * {@code PublishPrices} already pushed, sometimes after a later tick.
+     * Every price also refreshes the stock cache, watched or not.
+     */
+    @Override
+    public void publish(StockResponse update) {
+        stockCache.refresh(update);
+
+        String symbol = update.getStockSymbol();
+        Set<PriceSubscriber> watchers = subscribers.get(symbol);
+        if (watchers == null) {
+            return;
+        }
+        StockResponse latest = lastPublished.compute(symbol,
+                (k, previous) -> previous == null || isNewer(update, previous) ? update : previous);
+        if (latest != update) {
+            return;
+        }
+        for (PriceSubscriber subscriber : watchers) {
+            subscriber.onPrice(update);
+        }
+    }
+
+    /**
+     * Whether {@code update} carries a later timestamp than {@code than}.
+     */
+    public static boolean isNewer(StockResponse update, StockResponse than) {
+        return LocalDateTime.parse(update.getTimestamp()).isAfter(LocalDateTime.parse(than.getTimestamp()));
+    }
+
+    public static StockResponse toResponse(Stock stock) {
+        return StockResponse.newBuilder()
+                .setStockSymbol(stock.getStockSymbol())
+                .setPrice(stock.getPrice())
+                .setTimestamp(stock.getLastUpdated().toString())
+                .build();
+    }
+
+    @Override
+    public void symbolRemoved(String stockSymbol) {
+        stockCache.invalidate(stockSymbol);
+        Set<PriceSubscriber> orphaned = subscribers.remove(stockSymbol);
+        lastPublished.remove(stockSymbol);
+        if (orphaned != null) {
+            log.warn("Stock {} no longer exists, closing {} subscriptions", stockSymbol, orphaned.size());
+            orphaned.forEach(s -> s.onSymbolRemoved(stockSymbol));
+        }
+    }
+
+    private void expireSubscribers() {
+        long now = System.currentTimeMillis();
+        subscribers.forEach((symbol, set) -> set.forEach(subscriber -> {
+            if (subscriber.isExpired(now)) {
+                log.info("Max streaming time reached for {}", symbol);
+                unsubscribe(symbol, subscriber);
+                subscriber.close(Status.OK);
+            }
+        }));
+    }
+
+    private int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+}
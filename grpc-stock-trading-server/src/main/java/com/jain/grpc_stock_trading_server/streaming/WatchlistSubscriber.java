@@ -0,0 +1,158 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.PriceUpdateBatch;
+import com.jain.grpc.StockResponse;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-symbol subscriber behind {@code StreamPrices}.
+ * <p>
+ * Updates are conflated per symbol and written as {@link PriceUpdateBatch}
+ * frames. After the first pending update we wait {@code lingerMillis} so
+ * that prices for other symbols can join the same frame. A price older
+ * than one already accepted for its symbol (e.g. the snapshot sent on
+ * subscribe, racing a live tick) is dropped.
+ */
+public class WatchlistSubscriber extends FlowControlledStream<PriceUpdateBatch> implements PriceSubscriber {
+
+    private final StockPriceHub hub;
+    private final long lingerMillis;
+    private final int maxBatchSize;
+
+    private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+    private final Map<String, StockResponse> pending = new ConcurrentHashMap<>();
+    private final Map<String, StockResponse> latest = new ConcurrentHashMap<>();
+    private final Set<String> unknown = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public WatchlistSubscriber(ServerCallStreamObserver<PriceUpdateBatch> observer,
+                               StockPriceHub hub,
+                               long lingerMillis,
+                               int maxBatchSize) {
+        super(observer);
+        this.hub = hub;
+        this.lingerMillis = lingerMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void subscribe(Collection<String> stockSymbols) {
+        for (String symbol : stockSymbols) {
+            if (symbols.add(symbol)) {
+                hub.subscribe(symbol, this);
+            }
+        }
+    }
+
+    public void unsubscribe(Collection<String> stockSymbols) {
+        for (String symbol : stockSymbols) {
+            if (symbols.remove(symbol)) {
+                hub.unsubscribe(symbol, this);
+                pending.remove(symbol);
+                latest.remove(symbol);
+            }
+        }
+    }
+
+    /**
+     * Leave every symbol, e.g. when the client goes away.
+     */
+    public void unsubscribeAll() {
+        unsubscribe(Set.copyOf(symbols));
+    }
+
+    /**
+     * Report symbols that could not be subscribed in the next frame.
+     */
+    public void reportUnknown(Collection<String> stockSymbols) {
+        if (!stockSymbols.isEmpty()) {
+            unknown.addAll(stockSymbols);
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public void onPrice(StockResponse update) {
+        String symbol = update.getStockSymbol();
+        if (!symbols.contains(symbol)) {
+            return;
+        }
+        StockResponse accepted = latest.compute(symbol,
+                (k, current) -> current == null || StockPriceHub.isNewer(update, current) ? update : current);
+        if (accepted != update) {
+            return;
+        }
+        // Two accepted prices may still reach pending out of order
+        pending.merge(symbol, update, (current, newer) -> StockPriceHub.isNewer(newer, current) ? newer : current);
+        scheduleFlush();
+    }
+
+    @Override
+    public void onSymbolRemoved(String stockSymbol) {
+        symbols.remove(stockSymbol);
+        pending.remove(stockSymbol);
+        latest.remove(stockSymbol);
+        reportUnknown(Set.of(stockSymbol));
+    }
+
+    @Override
+    public boolean isExpired(long nowMillis) {
+        // Watchlists are long-lived by design; the client decides when to leave
+        return false;
+    }
+
+    @Override
+    public void close(Status status) {
+        unsubscribeAll();
+        super.close(status);
+    }
+
+    @Override
+    protected PriceUpdateBatch poll() {
+        if (pending.isEmpty() && unknown.isEmpty()) {
+            return null;
+        }
+
+        PriceUpdateBatch.Builder batch = PriceUpdateBatch.newBuilder();
+
+        Iterator<String> it = pending.keySet().iterator();
+        while (it.hasNext() && batch.getUpdatesCount() < maxBatchSize) {
+            StockResponse update = pending.remove(it.next());
+            if (update != null) {
+                batch.addUpdates(update);
+            }
+        }
+
+        Iterator<String> gone = unknown.iterator();
+        while (gone.hasNext()) {
+            batch.addUnknownSymbols(gone.next());
+            gone.remove();
+        }
+
+        return batch.getUpdatesCount() == 0 && batch.getUnknownSymbolsCount() == 0 ? null : batch.build();
+    }
+
+    @Override
+    protected void discard() {
+        pending.clear();
+        unknown.clear();
+    }
+
+    private void scheduleFlush() {
+        if (lingerMillis <= 0) {
+            drain();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            hub.schedule(() -> {
+                flushScheduled.set(false);
+                drain();
+            }, lingerMillis);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.jain.grpc_stock_trading_server.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where an order's time goes between {@code PlaceOrder} and its final
+ * status:
+ * <ul>
+ *   <li>{@code order_stage_duration_seconds{stage}} for each {@link Stage}</li>
+ *   <li>{@code order_accept_to_final_seconds{symbol,side,outcome}}: from the
+ *       event's {@code createdAt} (set when the order is accepted) until its
+ *       status is written; outcome is {@code EXECUTED}, {@code REJECTED}, or
+ *       {@code BOOKED} for limit orders handed to the order book (a limit
+ *       order is timed again as {@code EXECUTED} once fills complete it)</li>
+ * </ul>
+ * All timers have buckets at {@code trading.orders.latency.slo-ms}. Timers
+ * are created once and cached, so recording is one clock read and one
+ * histogram update.
+ */
+@Component
+public class OrderLifecycleMetrics {
+
+    public enum Stage {
+        /** Request checks in PlaceOrder / PlaceOrders */
+        VALIDATION,
+        /** Stock cache lookup of the order's symbol */
+        STOCK_LOOKUP,
+        /** Order insert into Mongo */
+        ORDER_INSERT,
+        /** Kafka send until the broker acknowledged the record */
+        KAFKA_SEND_ACK,
+        /** Event createdAt until the consumer received it */
+        CONSUMER_QUEUE,
+        /** Consumer reading the order back from Mongo */
+        ORDER_LOOKUP,
+        /** Consumer updating the portfolio */
+        PORTFOLIO_WRITE,
+        /** Consumer writing the final status */
+        STATUS_WRITE
+    }
+
+    private record OutcomeKey(String symbol, String side, String outcome) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Duration[] slos;
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<OutcomeKey, Timer> outcomes = new ConcurrentHashMap<>();
+
+    public OrderLifecycleMetrics(MeterRegistry meterRegistry,
+                                 @Value("${trading.orders.latency.slo-ms:1,5,10,25,50,100,250,500,1000,2500,5000,10000}") long[] sloMillis) {
+        this.meterRegistry = meterRegistry;
+        this.slos = Arrays.stream(sloMillis).sorted().mapToObj(Duration::ofMillis).toArray(Duration[]::new);
+
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("order_stage_duration_seconds")
+                    .description("Time spent in one stage of order placement or execution")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .serviceLevelObjectives(slos)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} ({@link System#nanoTime}) and ends now.
+     */
+    public void record(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record how long an event waited between being created and received.
+     */
+    public void received(Instant createdAt) {
+        if (createdAt != null) {
+            stages.get(Stage.CONSUMER_QUEUE).record(since(createdAt));
+        }
+    }
+
+    /**
+     * Record that an order reached its final status (or the order book) now.
+     * Events written before {@code createdAt} existed are skipped.
+     */
+    public void finished(String symbol, String side, String outcome, Instant createdAt) {
+        if (createdAt == null) {
+            return;
+        }
+        outcomes.computeIfAbsent(new OutcomeKey(symbol, side, outcome), key ->
+                Timer.builder("order_accept_to_final_seconds")
+                        .description("Order accepted until its final status was written")
+                        .tags("symbol", key.symbol(), "side", key.side(), "outcome", key.outcome())
+                        .serviceLevelObjectives(slos)
+                        .register(meterRegistry)
+        ).record(since(createdAt));
+    }
+
+    private static Duration since(Instant createdAt) {
+        Duration elapsed = Duration.between(createdAt, Instant.now());
+        // Producer and consumer may run on hosts with slightly different clocks
+        return elapsed.isNegative() ? Duration.ZERO : elapsed;
+    }
+}
@@ -0,0 +1,79 @@
+package com.jain.grpc_stock_trading_server.tracing;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Correlation id that follows an order from {@code PlaceOrder} to its
+ * execution. Taken from the caller's {@code x-trace-id} request header when
+ * present, generated otherwise; carried to the consumer in the
+ * {@code trace-id} Kafka record header and logged as {@code traceId} (MDC)
+ * on both sides.
+ */
+public final class OrderTrace {
+
+    public static final Metadata.Key<String> GRPC_HEADER =
+            Metadata.Key.of("x-trace-id", Metadata.ASCII_STRING_MARSHALLER);
+    public static final String KAFKA_HEADER = "trace-id";
+    public static final String MDC_KEY = "traceId";
+
+    private static final Context.Key<String> CONTEXT_KEY = Context.key("trace-id");
+
+    private OrderTrace() {
+    }
+
+    /**
+     * @return the caller's trace id for the current gRPC call, or a new one
+     */
+    public static String currentOrNew() {
+        String traceId = CONTEXT_KEY.get();
+        return traceId != null ? traceId : newId();
+    }
+
+    public static String newId() {
+        return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+
+    public static byte[] toHeader(String traceId) {
+        return traceId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the record's trace id, or null for records written without one
+     */
+    public static String fromHeaders(Headers headers) {
+        Header header = headers.lastHeader(KAFKA_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Makes a caller-supplied {@code x-trace-id} visible to {@link #currentOrNew()}.
+     * Calls without the header, or with one longer than 64 characters, pass
+     * straight through.
+     */
+    public static class GrpcInterceptor implements ServerInterceptor {
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                ServerCall<ReqT, RespT> call,
+                Metadata headers,
+                ServerCallHandler<ReqT, RespT> next) {
+
+            String traceId = headers.get(GRPC_HEADER);
+            if (traceId == null || traceId.isBlank() || traceId.length() > 64) {
+                return next.startCall(call, headers);
+            }
+            return Contexts.interceptCall(Context.current().withValue(CONTEXT_KEY, traceId), call, headers, next);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.jain.grpc_stock_trading_server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("order-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("order-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("order-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void sizingFollowsTheStandardFormulas() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.01, 60_000);
+
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        assertThat(filter.bitCount()).isEqualTo(9586);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    void keyIsRememberedForOneWindowAndForgottenAfterTwo() throws InterruptedException {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100, 0.001, 500);
+        filter.add("order-1");
+
+        Thread.sleep(600);
+        assertThat(filter.mightContain("order-1")).isTrue();
+
+        Thread.sleep(600);
+        assertThat(filter.mightContain("order-1")).isFalse();
+    }
+
+    @Test
+    void longIdleGapDropsBothGenerations() throws InterruptedException {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100, 0.001, 100);
+        filter.add("order-1");
+
+        Thread.sleep(250);
+
+        assertThat(filter.mightContain("order-1")).isFalse();
+    }
+}
@@ -0,0 +1,229 @@
+package com.jain.grpc_stock_trading_server.kafka;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import com.jain.grpc_stock_trading_server.matching.Fill;
+import com.jain.grpc_stock_trading_server.matching.MatchingEngine;
+import com.jain.grpc_stock_trading_server.matching.OrderFillRecorder;
+import com.jain.grpc_stock_trading_server.repository.OrderRepository;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepositoryCustom.Reservation;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderEventConsumerTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final OrderFillRecorder fillRecorder = mock(OrderFillRecorder.class);
+    private final PortfolioView portfolioView = mock(PortfolioView.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MatchingEngine matchingEngine;
+    private OrderEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        matchingEngine = new MatchingEngine(fillRecorder, meterRegistry, 1, 16, 4);
+        consumer = new OrderEventConsumer(orderRepository, portfolioRepository, matchingEngine,
+                new OrderLifecycleMetrics(meterRegistry, new long[]{10, 100}),
+                mock(OrderStatusHub.class), portfolioView);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchingEngine.stop();
+    }
+
+    @Test
+    void rebuiltBooksMatchNewOrders() {
+        Order resting = limit("sell-1", "SELL", 10, 100.0, "PARTIALLY_FILLED");
+        resting.setFilledQuantity(4);
+        Order bid = limit("buy-1", "BUY", 5, 99.0, "ACCEPTED");
+        bid.setBookedAt(LocalDateTime.now());
+        when(orderRepository.findByOrderTypeAndStatusInOrderByCreatedAtAsc(eq("LIMIT"), any()))
+                .thenReturn(List.of(resting, bid));
+        when(portfolioRepository.reserveHolding("default", resting.getId(), "AAPL", 6))
+                .thenReturn(Reservation.ALREADY_RESERVED);
+
+        consumer.rebuildBooks();
+        matchingEngine.submit(limit("buy-2", "BUY", 8, 100.0, "ACCEPTED"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Fill>> fills = ArgumentCaptor.forClass(List.class);
+        verify(fillRecorder, timeout(2000)).record(fills.capture());
+        // Only the 6 still open on the rebuilt SELL; the rebuilt BUY at 99 does not cross
+        assertThat(fills.getValue()).singleElement().satisfies(fill -> {
+            assertThat(fill.makerOrderId()).isEqualTo("sell-1");
+            assertThat(fill.takerOrderId()).isEqualTo("buy-2");
+            assertThat(fill.quantity()).isEqualTo(6);
+            assertThat(fill.makerDone()).isTrue();
+        });
+        // Both were booked before the restart
+        verify(orderRepository, never()).markBooked(anyList());
+    }
+
+    @Test
+    void orderNeverBookedIsCheckedOnRebuild() {
+        Order uncovered = limit("sell-1", "SELL", 10, 100.0, "ACCEPTED");
+        Order bid = limit("buy-1", "BUY", 5, 99.0, "ACCEPTED");
+        when(orderRepository.findByOrderTypeAndStatusInOrderByCreatedAtAsc(eq("LIMIT"), any()))
+                .thenReturn(List.of(uncovered, bid));
+        when(portfolioRepository.reserveHolding("default", uncovered.getId(), "AAPL", 10))
+                .thenReturn(Reservation.INSUFFICIENT);
+
+        consumer.rebuildBooks();
+
+        assertThat(uncovered.getStatus()).isEqualTo("REJECTED");
+        verify(orderRepository).save(uncovered);
+        verify(orderRepository).markBooked(List.of("buy-1"));
+    }
+
+    @Test
+    void eventForABookedOrderIsSkipped() {
+        Order booked = limit("buy-1", "BUY", 5, 101.0, "ACCEPTED");
+        booked.setBookedAt(LocalDateTime.now());
+        when(orderRepository.findByOrderId("buy-1")).thenReturn(booked);
+        matchingEngine.submit(limit("sell-1", "SELL", 5, 100.0, "ACCEPTED"));
+
+        consumer.consume(record(booked));
+
+        verify(orderRepository, never()).markBooked(anyList());
+        verify(fillRecorder, after(200).never()).record(anyList());
+    }
+
+    @Test
+    void sellIsReservedWhenBooked() {
+        Order sell = limit("sell-1", "SELL", 10, 100.0, "ACCEPTED");
+        when(orderRepository.findByOrderId("sell-1")).thenReturn(sell);
+        when(portfolioRepository.reserveHolding("default", sell.getId(), "AAPL", 10))
+                .thenReturn(Reservation.RESERVED);
+
+        consumer.consume(record(sell));
+
+        verify(portfolioView).applyDeltas("default", Map.of("AAPL", -10));
+        verify(orderRepository).markBooked(List.of("sell-1"));
+    }
+
+    @Test
+    void failedBookingReleasesTheReservation() {
+        Order sell = limit("sell-1", "SELL", 10, 100.0, "ACCEPTED");
+        when(orderRepository.findByOrderId("sell-1")).thenReturn(sell);
+        when(portfolioRepository.reserveHolding("default", sell.getId(), "AAPL", 10))
+                .thenReturn(Reservation.RESERVED);
+        when(portfolioRepository.releaseReservation("default", sell.getId(), "AAPL", 10)).thenReturn(true);
+        doThrow(new IllegalStateException("write failed")).when(orderRepository).markBooked(anyList());
+
+        assertThatThrownBy(() -> consumer.consume(record(sell))).isInstanceOf(IllegalStateException.class);
+
+        verify(portfolioRepository).releaseReservation("default", sell.getId(), "AAPL", 10);
+        verify(portfolioView).applyDeltas("default", Map.of("AAPL", 10));
+        assertThat(sell.getStatus()).isEqualTo("REJECTED");
+    }
+
+    @Test
+    void batchHoldsBackReservedQuantityFromLaterSells() {
+        Order first = limit("sell-1", "SELL", 6, 100.0, "ACCEPTED");
+        Order second = limit("sell-2", "SELL", 6, 101.0, "ACCEPTED");
+        when(orderRepository.findByOrderIdIn(anyList())).thenReturn(List.of(first, second));
+        Map<String, Integer> held = new HashMap<>(Map.of("AAPL", 10));
+        when(portfolioRepository.findHoldings(any())).thenReturn(new HashMap<>(Map.of("default", held)));
+        when(portfolioRepository.reserveHolding("default", first.getId(), "AAPL", 6))
+                .thenReturn(Reservation.RESERVED);
+
+        consumer.consumeBatch(List.of(record(first), record(second)));
+
+        verify(portfolioRepository, never()).reserveHolding(anyString(), eq(second.getId()), anyString(), anyInt());
+        verify(orderRepository).updateStatuses(Map.of("sell-2", "REJECTED"));
+        verify(orderRepository).markBooked(List.of("sell-1"));
+    }
+
+    @Test
+    void batchExecutesAnAccountOneByOneWhenItsReservationFails() {
+        Order limitSell = limit("sell-1", "SELL", 6, 100.0, "ACCEPTED");
+        Order marketSell = market("sell-2", "SELL", 4);
+        when(orderRepository.findByOrderIdIn(anyList())).thenReturn(List.of(limitSell, marketSell));
+        // The one-by-one path reads each order again
+        Order limitSellReread = limit("sell-1", "SELL", 6, 100.0, "ACCEPTED");
+        limitSellReread.setId(limitSell.getId());
+        Order marketSellReread = market("sell-2", "SELL", 4);
+        when(orderRepository.findByOrderId("sell-1")).thenReturn(limitSellReread);
+        when(orderRepository.findByOrderId("sell-2")).thenReturn(marketSellReread);
+        when(portfolioRepository.findHoldings(any()))
+                .thenReturn(new HashMap<>(Map.of("default", new HashMap<>(Map.of("AAPL", 10)))));
+        // Another writer took 5 shares after the batch read the holdings
+        when(portfolioRepository.reserveHolding("default", limitSell.getId(), "AAPL", 6))
+                .thenReturn(Reservation.INSUFFICIENT);
+        when(portfolioRepository.removeHolding("default", "AAPL", 4)).thenReturn(true);
+
+        consumer.consumeBatch(List.of(record(limitSell), record(marketSell)));
+
+        // The market SELL was not judged against the quantity the failed reservation held back
+        verify(portfolioRepository, never()).applyHoldingDeltas(anyString(), any());
+        verify(portfolioRepository).removeHolding("default", "AAPL", 4);
+        assertThat(limitSellReread.getStatus()).isEqualTo("REJECTED");
+        assertThat(marketSellReread.getStatus()).isEqualTo("EXECUTED");
+    }
+
+    private static ConsumerRecord<String, OrderPlacedEvent> record(Order order) {
+        OrderPlacedEvent event = OrderPlacedEvent.builder()
+                .orderId(order.getOrderId())
+                .stockSymbol(order.getStockSymbol())
+                .side(order.getSide())
+                .quantity(order.getQuantity())
+                .orderType(order.getOrderType())
+                .limitPrice(order.getLimitPrice())
+                .createdAt(Instant.now())
+                .build();
+        return new ConsumerRecord<>("order-placed", 0, 0, "default", event);
+    }
+
+    private static Order market(String orderId, String side, int quantity) {
+        Order order = limit(orderId, side, quantity, 0.0, "ACCEPTED");
+        order.setOrderType("MARKET");
+        return order;
+    }
+
+    static Order limit(String orderId, String side, int quantity, double price, String status) {
+        return Order.builder()
+                .id(new ObjectId())
+                .orderId(orderId)
+                .stockSymbol("AAPL")
+                .side(side)
+                .quantity(quantity)
+                .orderType("LIMIT")
+                .limitPrice(price)
+                .status(status)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
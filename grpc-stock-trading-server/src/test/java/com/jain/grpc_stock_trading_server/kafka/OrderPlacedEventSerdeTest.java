@@ -0,0 +1,96 @@
+package com.jain.grpc_stock_trading_server.kafka;
+
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderPlacedEventSerdeTest {
+
+    private static final String TOPIC = "order-placed";
+
+    private final OrderPlacedEventSerializer serializer = new OrderPlacedEventSerializer();
+    private final OrderPlacedEventDeserializer deserializer = new OrderPlacedEventDeserializer();
+
+    @Test
+    void protobufRoundTripKeepsEveryField() {
+        OrderPlacedEvent event = OrderPlacedEvent.builder()
+                .orderId("order-1")
+                .accountId("acct-7")
+                .stockSymbol("AAPL")
+                .side("SELL")
+                .quantity(150)
+                .orderType("LIMIT")
+                .limitPrice(187.25)
+                .createdAt(Instant.parse("2025-01-01T10:00:00.123456789Z"))
+                .build();
+
+        byte[] payload = serializer.serialize(TOPIC, event);
+
+        assertThat(payload[0]).isNotEqualTo((byte) '{');
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), payload)).isEqualTo(event);
+    }
+
+    @Test
+    void missingOptionalFieldsStayNull() {
+        OrderPlacedEvent event = OrderPlacedEvent.builder()
+                .orderId("order-1")
+                .stockSymbol("AAPL")
+                .side("BUY")
+                .quantity(1)
+                .build();
+
+        OrderPlacedEvent read = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, event));
+
+        assertThat(read.getAccountId()).isNull();
+        assertThat(read.getCreatedAt()).isNull();
+        assertThat(read.getOrderType()).isEqualTo("MARKET");
+    }
+
+    @Test
+    void jsonRecordWithTypeHeaderIsStillRead() {
+        OrderPlacedEvent event = OrderPlacedEvent.builder()
+                .orderId("order-1")
+                .stockSymbol("AAPL")
+                .side("BUY")
+                .quantity(10)
+                .orderType("MARKET")
+                .createdAt(Instant.parse("2025-01-01T10:00:00Z"))
+                .build();
+        RecordHeaders headers = new RecordHeaders();
+
+        try (JsonSerializer<OrderPlacedEvent> json = new JsonSerializer<>()) {
+            byte[] payload = json.serialize(TOPIC, headers, event);
+
+            assertThat(deserializer.deserialize(TOPIC, headers, payload)).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void jsonRecordWithoutHeadersIsRecognisedByItsFirstByte() {
+        byte[] payload = """
+                {"orderId":"order-1","stockSymbol":"MSFT","side":"SELL","quantity":3}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        OrderPlacedEvent read = deserializer.deserialize(TOPIC, payload);
+
+        assertThat(read.getOrderId()).isEqualTo("order-1");
+        assertThat(read.getStockSymbol()).isEqualTo("MSFT");
+        assertThat(read.getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void corruptPayloadFailsWithSerializationException() {
+        byte[] payload = {(byte) 0x0a, (byte) 0x7f, 1, 2};
+
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, payload))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderBookTest {
+
+    private record Recorded(long makerRef, long takerRef, long priceTicks, int quantity,
+                            int makerRemaining, int takerRemaining) {
+    }
+
+    private final OrderBook book = new OrderBook("AAPL", 2, 2);
+    private final List<Recorded> fills = new ArrayList<>();
+    private final FillListener listener = (maker, taker, price, quantity, makerRemaining, takerRemaining) ->
+            fills.add(new Recorded(maker, taker, price, quantity, makerRemaining, takerRemaining));
+
+    @Test
+    void nonCrossingOrdersRest() {
+        assertThat(book.submit(1, true, ticks(99.0), 10, listener)).isEqualTo(10);
+        assertThat(book.submit(2, false, ticks(101.0), 5, listener)).isEqualTo(5);
+
+        assertThat(fills).isEmpty();
+        assertThat(book.bestBid()).isEqualTo(ticks(99.0));
+        assertThat(book.bestAsk()).isEqualTo(ticks(101.0));
+        assertThat(book.restingOrders()).isEqualTo(2);
+    }
+
+    @Test
+    void bestPriceFillsFirstAtTheMakersPrice() {
+        book.submit(1, false, ticks(101.0), 10, listener);
+        book.submit(2, false, ticks(100.0), 10, listener);
+
+        int resting = book.submit(3, true, ticks(102.0), 15, listener);
+
+        assertThat(resting).isZero();
+        assertThat(fills).containsExactly(
+                new Recorded(2, 3, ticks(100.0), 10, 0, 5),
+                new Recorded(1, 3, ticks(101.0), 5, 5, 0));
+        assertThat(book.bestAsk()).isEqualTo(ticks(101.0));
+    }
+
+    @Test
+    void samePriceFillsInTimeOrder() {
+        book.submit(1, true, ticks(100.0), 4, listener);
+        book.submit(2, true, ticks(100.0), 4, listener);
+        book.submit(3, true, ticks(100.0), 4, listener);
+
+        book.submit(4, false, ticks(100.0), 6, listener);
+
+        assertThat(fills).extracting(Recorded::makerRef).containsExactly(1L, 2L);
+        assertThat(fills.get(1).makerRemaining()).isEqualTo(2);
+        assertThat(book.restingOrders()).isEqualTo(2);
+    }
+
+    @Test
+    void unfilledRemainderRestsAtItsLimit() {
+        book.submit(1, false, ticks(100.0), 3, listener);
+
+        int resting = book.submit(2, true, ticks(100.5), 10, listener);
+
+        assertThat(resting).isEqualTo(7);
+        assertThat(book.bestBid()).isEqualTo(ticks(100.5));
+        assertThat(book.bestAsk()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void poolGrowsPastItsInitialSize() {
+        for (int i = 0; i < 50; i++) {
+            book.submit(i, true, ticks(90.0 + i * 0.01), 1, listener);
+        }
+
+        int resting = book.submit(100, false, ticks(90.0), 60, listener);
+
+        assertThat(fills).hasSize(50);
+        assertThat(fills.get(0).makerRef()).isEqualTo(49);
+        assertThat(resting).isEqualTo(10);
+        assertThat(book.restingOrders()).isEqualTo(1);
+    }
+
+    private static long ticks(double price) {
+        return PriceTicks.toTicks(price);
+    }
+}
@@ -0,0 +1,179 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import com.jain.grpc_stock_trading_server.streaming.OrderStatusHub;
+import com.jain.grpc_stock_trading_server.streaming.PortfolioView;
+import com.jain.grpc_stock_trading_server.tracing.OrderLifecycleMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderFillRecorderTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final PortfolioView portfolioView = mock(PortfolioView.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OrderFillRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Order.class)))
+                .thenReturn(bulk);
+        recorder = new OrderFillRecorder(mongoTemplate, mock(OrderStatusHub.class), portfolioRepository,
+                portfolioView, new OrderLifecycleMetrics(meterRegistry, new long[]{10, 100}), meterRegistry, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.stop();
+    }
+
+    @Test
+    void completedOrdersAreTimedAsExecuted() throws InterruptedException {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("buy-1", "BUY", "EXECUTED")));
+
+        // The taker BUY is filled in full, the maker SELL keeps resting
+        recorder.record(List.of(new Fill("AAPL", "sell-1", "buy-1", "seller", "buyer",
+                true, 100.0, 5, false, true)));
+
+        assertThat(awaitExecuted("BUY").count()).isEqualTo(1);
+        assertThat(meterRegistry.find("order_accept_to_final_seconds").tag("side", "SELL").timer()).isNull();
+    }
+
+    @Test
+    void fillsCreditOnlyTheBuyer() {
+        recorder.record(List.of(
+                new Fill("AAPL", "sell-1", "buy-1", "seller", "buyer", true, 100.0, 5, false, false),
+                new Fill("AAPL", "buy-2", "sell-2", "buyer", "seller", false, 100.0, 3, false, false)));
+
+        // The sellers' side left their holdings when their SELLs were booked
+        verify(portfolioRepository, timeout(2000)).incHoldings(Map.of("buyer", Map.of("AAPL", 8)));
+    }
+
+    @Test
+    void filledSellDropsItsReservation() {
+        Order sell = order("sell-1", "SELL", "EXECUTED");
+        sell.setAccountId("seller");
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(sell));
+
+        recorder.record(List.of(new Fill("AAPL", "sell-1", "buy-1", "seller", "buyer",
+                true, 100.0, 5, true, false)));
+
+        verify(portfolioRepository, timeout(2000)).clearReservations(Map.of("seller", List.of(sell.getId())));
+    }
+
+    @Test
+    void failedSettlementIsRetriedWithTheNextBatch() {
+        when(portfolioRepository.incHoldings(Map.of("buyer", Map.of("AAPL", 5))))
+                .thenThrow(new IllegalStateException("primary stepped down"));
+
+        recorder.record(List.of(new Fill("AAPL", "sell-1", "buy-1", "seller", "buyer",
+                true, 100.0, 5, false, false)));
+        recorder.record(List.of(new Fill("AAPL", "sell-1", "buy-2", "seller", "buyer",
+                true, 100.0, 2, false, false)));
+
+        verify(portfolioRepository, timeout(2000)).incHoldings(Map.of("buyer", Map.of("AAPL", 7)));
+        verify(portfolioView, timeout(2000)).applyDeltas("buyer", Map.of("AAPL", 7));
+    }
+
+    @Test
+    void onlyTheAccountsThatFailedAreRetried() {
+        when(portfolioRepository.incHoldings(Map.of("alice", Map.of("AAPL", 5), "bob", Map.of("AAPL", 3))))
+                .thenReturn(Set.of("bob"));
+
+        recorder.record(List.of(
+                new Fill("AAPL", "sell-1", "buy-1", "seller", "alice", true, 100.0, 5, false, false),
+                new Fill("AAPL", "sell-1", "buy-2", "seller", "bob", true, 100.0, 3, false, false)));
+        recorder.record(List.of(new Fill("AAPL", "sell-1", "buy-3", "seller", "carol",
+                true, 100.0, 1, false, false)));
+
+        verify(portfolioRepository, timeout(2000)).incHoldings(Map.of("bob", Map.of("AAPL", 3), "carol", Map.of("AAPL", 1)));
+        verify(portfolioView, timeout(2000)).applyDeltas("alice", Map.of("AAPL", 5));
+        verify(portfolioView, timeout(2000)).applyDeltas("bob", Map.of("AAPL", 3));
+    }
+
+    @Test
+    void failedFillWriteRetriesOnlyTheUpdatesThatDidNotApply() {
+        // The first fill's maker update went in, its taker update failed
+        BulkWriteError error = new BulkWriteError(11600, "interrupted at shutdown", new BsonDocument(), 1);
+        when(bulk.execute())
+                .thenThrow(new BulkOperationException("write failed", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of())))
+                .thenReturn(null);
+
+        recorder.record(List.of(
+                new Fill("AAPL", "sell-1", "buy-1", "seller", "buyer", true, 100.0, 5, false, true),
+                new Fill("AAPL", "sell-2", "buy-2", "seller", "buyer", true, 100.0, 2, true, false)));
+        recorder.record(List.of(new Fill("AAPL", "sell-3", "buy-3", "seller", "buyer",
+                true, 100.0, 1, true, false)));
+
+        verify(portfolioRepository, timeout(2000)).incHoldings(Map.of("buyer", Map.of("AAPL", 8)));
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(9)).updateOne(queries.capture(), any(Update.class));
+        assertThat(queries.getAllValues()).extracting(q -> q.getQueryObject().getString("orderId")).containsExactly(
+                "sell-1", "buy-1", "sell-2", "buy-2",
+                "buy-1", "sell-2", "buy-2", "sell-3", "buy-3");
+        // Nothing was credited for the fills the failed write left out
+        verify(portfolioRepository, never()).incHoldings(Map.of("buyer", Map.of("AAPL", 7)));
+    }
+
+    private Timer awaitExecuted(String side) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            Timer timer = meterRegistry.find("order_accept_to_final_seconds")
+                    .tags("outcome", "EXECUTED", "side", side)
+                    .timer();
+            if (timer != null) {
+                return timer;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No EXECUTED timing for " + side);
+    }
+
+    private static Order order(String orderId, String side, String status) {
+        return Order.builder()
+                .id(new ObjectId())
+                .orderId(orderId)
+                .stockSymbol("AAPL")
+                .side(side)
+                .orderType("LIMIT")
+                .status(status)
+                .createdAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.jain.grpc_stock_trading_server.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderSlotsTest {
+
+    @Test
+    void findsRestingOrdersAndForgetsReleasedOnes() {
+        OrderSlots slots = new OrderSlots(16);
+        int first = slots.acquire("order-1", "alice");
+        int second = slots.acquire("order-2", "bob");
+
+        assertThat(slots.find("order-1")).isEqualTo(first);
+        assertThat(slots.account(second)).isEqualTo("bob");
+
+        slots.release(first);
+
+        assertThat(slots.find("order-1")).isEqualTo(OrderSlots.NIL);
+        assertThat(slots.find("order-2")).isEqualTo(second);
+        assertThat(slots.acquire("order-3", "carol")).as("released slot is reused").isEqualTo(first);
+    }
+
+    @Test
+    void matchesAMapThroughGrowthAndRandomReleases() {
+        OrderSlots slots = new OrderSlots(16);
+        Map<String, Integer> expected = new HashMap<>();
+        List<String> live = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            if (live.isEmpty() || random.nextInt(3) > 0) {
+                String orderId = "order-" + i;
+                int slot = slots.acquire(orderId, "account-" + (i % 7));
+                expected.put(orderId, slot);
+                live.add(orderId);
+            } else {
+                String orderId = live.remove(random.nextInt(live.size()));
+                slots.release(expected.remove(orderId));
+                assertThat(slots.find(orderId)).isEqualTo(OrderSlots.NIL);
+            }
+        }
+
+        assertThat(slots.inUse()).isEqualTo(expected.size());
+        expected.forEach((orderId, slot) -> {
+            assertThat(slots.find(orderId)).isEqualTo(slot);
+            assertThat(slots.orderId(slot)).isEqualTo(orderId);
+        });
+    }
+}
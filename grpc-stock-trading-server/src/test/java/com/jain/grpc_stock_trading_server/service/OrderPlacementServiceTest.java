@@ -0,0 +1,52 @@
+package com.jain.grpc_stock_trading_server.service;
+
+import com.jain.grpc.OrderSide;
+import com.jain.grpc.OrderType;
+import com.jain.grpc.PlaceOrderRequest;
+import com.jain.grpc_stock_trading_server.entity.Order;
+import com.jain.grpc_stock_trading_server.events.OrderPlacedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderPlacementServiceTest {
+
+    @Test
+    void wellFormedOrderIsValid() {
+        assertThat(OrderPlacementService.validate(order("AAPL").build())).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"BRK.B", "$set", "holdings.AAPL", " "})
+    void symbolThatIsNotAPlainFieldNameIsRejected(String symbol) {
+        assertThat(OrderPlacementService.validate(order(symbol).build())).isNotNull();
+    }
+
+    @Test
+    void limitOrderNeedsAPrice() {
+        PlaceOrderRequest request = order("AAPL").setOrderType(OrderType.LIMIT).build();
+
+        assertThat(OrderPlacementService.validate(request)).contains("Limit price");
+    }
+
+    @Test
+    void eventCarriesTheOrdersCreationTime() {
+        Order order = OrderPlacementService.toOrder(order("AAPL").build());
+
+        OrderPlacedEvent event = OrderPlacementService.toEvent(order);
+
+        assertThat(event.getCreatedAt()).isEqualTo(order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static PlaceOrderRequest.Builder order(String symbol) {
+        return PlaceOrderRequest.newBuilder()
+                .setOrderId("order-1")
+                .setStockSymbol(symbol)
+                .setSide(OrderSide.BUY)
+                .setQuantity(10);
+    }
+}
@@ -0,0 +1,74 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConflatingPriceSubscriberTest {
+
+    private ServerCallStreamObserver<StockResponse> observer;
+    private ConflatingPriceSubscriber subscriber;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        observer = mock(ServerCallStreamObserver.class);
+        subscriber = new ConflatingPriceSubscriber(observer, Long.MAX_VALUE);
+        subscriber.attach(() -> { });
+    }
+
+    @Test
+    void snapshotOlderThanDeliveredTickIsDropped() {
+        when(observer.isReady()).thenReturn(true);
+
+        subscriber.onPrice(price(101.0, "2025-01-01T10:00:01"));
+        subscriber.onPrice(price(100.0, "2025-01-01T10:00"));
+
+        ArgumentCaptor<StockResponse> sent = ArgumentCaptor.forClass(StockResponse.class);
+        verify(observer).onNext(sent.capture());
+        assertThat(sent.getValue().getPrice()).isEqualTo(101.0);
+    }
+
+    @Test
+    void snapshotOlderThanPendingTickDoesNotReplaceIt() {
+        when(observer.isReady()).thenReturn(false);
+        subscriber.onPrice(price(101.0, "2025-01-01T10:00:01.250"));
+        subscriber.onPrice(price(100.0, "2025-01-01T10:00:01"));
+
+        when(observer.isReady()).thenReturn(true);
+        subscriber.drain();
+
+        ArgumentCaptor<StockResponse> sent = ArgumentCaptor.forClass(StockResponse.class);
+        verify(observer).onNext(sent.capture());
+        assertThat(sent.getValue().getPrice()).isEqualTo(101.0);
+    }
+
+    @Test
+    void newerPricesReplaceUndeliveredOnes() {
+        when(observer.isReady()).thenReturn(false);
+        subscriber.onPrice(price(100.0, "2025-01-01T10:00"));
+        subscriber.onPrice(price(102.0, "2025-01-01T10:00:02"));
+
+        when(observer.isReady()).thenReturn(true);
+        subscriber.drain();
+
+        ArgumentCaptor<StockResponse> sent = ArgumentCaptor.forClass(StockResponse.class);
+        verify(observer).onNext(sent.capture());
+        assertThat(sent.getValue().getPrice()).isEqualTo(102.0);
+    }
+
+    static StockResponse price(double price, String timestamp) {
+        return StockResponse.newBuilder()
+                .setStockSymbol("AAPL")
+                .setPrice(price)
+                .setTimestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.GetPortfolioResponse;
+import com.jain.grpc.Holding;
+import com.jain.grpc_stock_trading_server.entity.Portfolio;
+import com.jain.grpc_stock_trading_server.repository.PortfolioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioViewTest {
+
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+
+    private PortfolioView view;
+
+    @BeforeEach
+    void setUp() {
+        when(portfolioRepository.findAll()).thenReturn(List.of(
+                portfolio("alice", Map.of("AAPL", 10)),
+                portfolio("bob", Map.of("MSFT", 1))));
+        view = new PortfolioView(portfolioRepository, new SimpleMeterRegistry(), 0);
+        view.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        view.stop();
+    }
+
+    @Test
+    void resyncPicksUpHoldingsWrittenElsewhere() {
+        when(portfolioRepository.findAll()).thenReturn(List.of(
+                portfolio("alice", Map.of("AAPL", 10, "GOOG", 2)),
+                portfolio("bob", Map.of())));
+
+        view.resync();
+
+        assertThat(holdings("alice")).containsExactlyInAnyOrderEntriesOf(Map.of("AAPL", 10, "GOOG", 2));
+        assertThat(holdings("bob")).isEmpty();
+    }
+
+    @Test
+    void resyncKeepsAccountsChangedDuringTheReadAndAppliesTheRest() {
+        // alice's fill lands after the read started, so the stored copy is stale for her only
+        when(portfolioRepository.findAll()).thenAnswer(invocation -> {
+            view.applyDeltas("alice", Map.of("AAPL", 5));
+            return List.of(
+                    portfolio("alice", Map.of("AAPL", 10)),
+                    portfolio("bob", Map.of("MSFT", 3)));
+        });
+
+        view.resync();
+
+        assertThat(holdings("alice")).containsExactlyEntriesOf(Map.of("AAPL", 15));
+        assertThat(holdings("bob")).containsExactlyEntriesOf(Map.of("MSFT", 3));
+
+        // Next pass compares alice again
+        when(portfolioRepository.findAll()).thenReturn(List.of(
+                portfolio("alice", Map.of("AAPL", 14)),
+                portfolio("bob", Map.of("MSFT", 3))));
+
+        view.resync();
+
+        assertThat(holdings("alice")).containsExactlyEntriesOf(Map.of("AAPL", 14));
+    }
+
+    private Map<String, Integer> holdings(String accountId) {
+        GetPortfolioResponse response = view.snapshot(accountId);
+        return response.getHoldingsList().stream()
+                .collect(Collectors.toMap(Holding::getStockSymbol, Holding::getQuantity));
+    }
+
+    private static Portfolio portfolio(String accountId, Map<String, Integer> holdings) {
+        return Portfolio.builder()
+                .accountId(accountId)
+                .holdings(holdings)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.StockResponse;
+import com.jain.grpc_stock_trading_server.cache.StockCache;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jain.grpc_stock_trading_server.streaming.ConflatingPriceSubscriberTest.price;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class StockPriceHubTest {
+
+    private final InMemoryPriceSource source = new InMemoryPriceSource();
+    private final StockCache stockCache = mock(StockCache.class);
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+    private StockPriceHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new StockPriceHub(source, stockCache, new SimpleMeterRegistry(), 30, 1);
+        hub.start();
+        hub.subscribe("AAPL", subscriber);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    void echoOfAnEarlierTickIsNotSentAfterALaterOne() {
+        source.emit(price(100.0, "2025-01-01T10:00"));
+        source.emit(price(101.0, "2025-01-01T10:00:01"));
+        // Change stream catching up on the first write
+        source.emit(price(100.0, "2025-01-01T10:00"));
+
+        assertThat(subscriber.prices).extracting(StockResponse::getPrice).containsExactly(100.0, 101.0);
+    }
+
+    @Test
+    void repeatedTickIsSentOnce() {
+        source.emit(price(100.0, "2025-01-01T10:00"));
+        source.emit(price(100.0, "2025-01-01T10:00"));
+
+        assertThat(subscriber.prices).hasSize(1);
+    }
+
+    @Test
+    void everyTickRefreshesTheCache() {
+        StockResponse stale = price(99.0, "2025-01-01T09:59");
+        source.emit(price(100.0, "2025-01-01T10:00"));
+        source.emit(stale);
+
+        // The cache applies its own timestamp check
+        verify(stockCache).refresh(stale);
+    }
+
+    @Test
+    void removedSymbolNotifiesSubscribers() {
+        source.remove("AAPL");
+
+        assertThat(subscriber.removed).containsExactly("AAPL");
+        assertThat(hub.watchedSymbols()).isEmpty();
+    }
+
+    private static class RecordingSubscriber implements PriceSubscriber {
+
+        final List<StockResponse> prices = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+
+        @Override
+        public void onPrice(StockResponse update) {
+            prices.add(update);
+        }
+
+        @Override
+        public void onSymbolRemoved(String stockSymbol) {
+            removed.add(stockSymbol);
+        }
+
+        @Override
+        public boolean isExpired(long nowMillis) {
+            return false;
+        }
+
+        @Override
+        public void close(Status status) {
+        }
+    }
+}
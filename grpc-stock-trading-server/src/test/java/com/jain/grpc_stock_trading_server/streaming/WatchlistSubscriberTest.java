@@ -0,0 +1,64 @@
+package com.jain.grpc_stock_trading_server.streaming;
+
+import com.jain.grpc.PriceUpdateBatch;
+import com.jain.grpc.StockResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchlistSubscriberTest {
+
+    private ServerCallStreamObserver<PriceUpdateBatch> observer;
+    private WatchlistSubscriber subscriber;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        observer = mock(ServerCallStreamObserver.class);
+        subscriber = new WatchlistSubscriber(observer, mock(StockPriceHub.class), 0, 100);
+        subscriber.attach(() -> { });
+        subscriber.subscribe(List.of("AAPL"));
+    }
+
+    @Test
+    void seedOlderThanDeliveredTickIsDropped() {
+        when(observer.isReady()).thenReturn(true);
+
+        subscriber.onPrice(price(101.0, "2025-01-01T10:00:01"));
+        subscriber.onPrice(price(100.0, "2025-01-01T10:00"));
+
+        ArgumentCaptor<PriceUpdateBatch> sent = ArgumentCaptor.forClass(PriceUpdateBatch.class);
+        verify(observer).onNext(sent.capture());
+        assertThat(sent.getValue().getUpdatesList()).extracting(StockResponse::getPrice).containsExactly(101.0);
+    }
+
+    @Test
+    void seedOlderThanPendingTickDoesNotReplaceIt() {
+        when(observer.isReady()).thenReturn(false);
+        subscriber.onPrice(price(101.0, "2025-01-01T10:00:01"));
+        subscriber.onPrice(price(100.0, "2025-01-01T10:00"));
+
+        when(observer.isReady()).thenReturn(true);
+        subscriber.drain();
+
+        ArgumentCaptor<PriceUpdateBatch> sent = ArgumentCaptor.forClass(PriceUpdateBatch.class);
+        verify(observer).onNext(sent.capture());
+        assertThat(sent.getValue().getUpdatesList()).extracting(StockResponse::getPrice).containsExactly(101.0);
+    }
+
+    static StockResponse price(double price, String timestamp) {
+        return StockResponse.newBuilder()
+                .setStockSymbol("AAPL")
+                .setPrice(price)
+                .setTimestamp(timestamp)
+                .build();
+    }
+}